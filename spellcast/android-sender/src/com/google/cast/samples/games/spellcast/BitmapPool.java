@@ -0,0 +1,104 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Pool of bitmaps that are no longer in use, so that views drawing into full screen bitmaps can
+ * reuse one of the right size and config instead of allocating a new one every time their size
+ * changes. Bitmaps are recycled as soon as they leave the pool, either because the pool is over
+ * its size budget or because the system asked the app to trim its memory.
+ */
+public class BitmapPool {
+
+    // Pooled bitmaps from least to most recently released.
+    private final LinkedList<Bitmap> mBitmaps = new LinkedList<>();
+    private final int mMaxBytes;
+    private int mBytes = 0;
+
+    /**
+     * @param maxBytes How many bytes of bitmaps the pool may hold on to.
+     */
+    public BitmapPool(int maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * @return A transparent bitmap with the given size and config, reused from the pool if
+     *         possible. Pass it to {@link #release} once it is no longer used.
+     */
+    public Bitmap acquire(int width, int height, Bitmap.Config config) {
+        synchronized (this) {
+            Iterator<Bitmap> iterator = mBitmaps.iterator();
+            while (iterator.hasNext()) {
+                Bitmap bitmap = iterator.next();
+                if (bitmap.getWidth() == width && bitmap.getHeight() == height
+                        && bitmap.getConfig() == config) {
+                    iterator.remove();
+                    mBytes -= bitmap.getByteCount();
+                    return bitmap;
+                }
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Hands a bitmap back to the pool. The caller must not use it afterwards.
+     */
+    public void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        if (!bitmap.isMutable() || bitmap.getByteCount() > mMaxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        bitmap.eraseColor(Color.TRANSPARENT);
+        synchronized (this) {
+            mBitmaps.addLast(bitmap);
+            mBytes += bitmap.getByteCount();
+            trimToSize(mMaxBytes);
+        }
+    }
+
+    /**
+     * Recycles every pooled bitmap.
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * Call from {@link ComponentCallbacks2#onTrimMemory}. Pooled bitmaps are not in use, so they
+     * are all dropped whatever the level.
+     */
+    public void onTrimMemory(int level) {
+        clear();
+    }
+
+    private void trimToSize(int maxBytes) {
+        while (mBytes > maxBytes && !mBitmaps.isEmpty()) {
+            Bitmap bitmap = mBitmaps.removeFirst();
+            mBytes -= bitmap.getByteCount();
+            bitmap.recycle();
+        }
+    }
+}
@@ -14,6 +14,7 @@
 package com.google.cast.samples.games.spellcast;
 
 import com.google.cast.samples.games.spellcast.spells.Spell;
+import com.google.cast.samples.games.spellcast.spells.SpellAssetLoader;
 
 import android.app.Fragment;
 import android.os.Bundle;
@@ -29,6 +30,8 @@ import android.view.animation.AnimationUtils;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import java.util.concurrent.Executor;
+
 /**
  * Fragment used to display the combat screen for spellcast, where the player gets to draw spells.
  */
@@ -63,8 +66,8 @@ public class CombatFragment extends Fragment implements EventManager.EventListen
             Events.EventType.END_PLAYER_TURN,
             Events.EventType.RECEIVER_GAME_LOST,
             Events.EventType.RECEIVER_GAME_WON,
-            Events.EventType.SPELL_CAST_SUCCESSFUL,
             Events.EventType.SPELL_CAST_FAIL,
+            Events.EventType.SPELL_QUEUED,
             Events.EventType.SPELLS_SENT,
     };
 
@@ -87,7 +90,8 @@ public class CombatFragment extends Fragment implements EventManager.EventListen
         activity.getSupportActionBar().hide();
 
         EventManager eventManager = SpellcastApplication.getInstance().getEventManager();
-        eventManager.addEventListener(HANDLED_EVENTS, this);
+        eventManager.addEventListener(HANDLED_EVENTS, this,
+                SpellcastApplication.getInstance().getMainExecutor());
 
         SpellcastApplication app = SpellcastApplication.getInstance();
         View view = inflater.inflate(R.layout.combat_fragment, container, false);
@@ -95,12 +99,24 @@ public class CombatFragment extends Fragment implements EventManager.EventListen
         mSpellButtonView.attachSpells(app.getGameModel().getControlledCharacter(),
                 new SpellCircleView.OnSpellSelectListener() {
                     @Override
-                    public void onSpellSelected(Spell spell) {
+                    public void onSpellSelected(final Spell spell) {
                         SpellcastApplication app = SpellcastApplication.getInstance();
-                        PlayableCharacter user = app.getGameModel().getControlledCharacter();
-                        if (spell.canCast(user)) {
-                            mSpellDrawingView.setSpell(spell, user.getDifficultySetting());
+                        final PlayableCharacter user = app.getGameModel().getControlledCharacter();
+                        if (!spell.canCast(user)) {
+                            return;
                         }
+                        // Spells are normally loaded long before combat, but if the player is
+                        // faster than the loader, show the rune as soon as it is ready.
+                        app.getSpellAssetLoader().whenReady(
+                                new SpellAssetLoader.OnSpellsLoadedListener() {
+                                    @Override
+                                    public void onSpellsLoaded() {
+                                        if (isAdded() && mSpellButtonView.isEnabled()) {
+                                            mSpellDrawingView.setSpell(spell,
+                                                    user.getDifficultySetting());
+                                        }
+                                    }
+                                });
                     }
                 });
 
@@ -147,6 +163,8 @@ public class CombatFragment extends Fragment implements EventManager.EventListen
 
         EventManager eventManager = SpellcastApplication.getInstance().getEventManager();
         eventManager.removeEventListener(HANDLED_EVENTS, this);
+        // Lets go of the spells shown when leaving combat in the middle of a turn.
+        mSpellQueueAdapter.clear();
     }
 
     @Override
@@ -165,8 +183,8 @@ public class CombatFragment extends Fragment implements EventManager.EventListen
             case SPELL_CAST_FAIL:
                 onSpellCastFail();
                 break;
-            case SPELL_CAST_SUCCESSFUL:
-                onSpellCastSuccessful((Events.SpellEventData) eventData);
+            case SPELL_QUEUED:
+                onSpellQueued((Events.SpellEventData) eventData);
                 break;
             case RECEIVER_GAME_LOST:
                 showGameOverScreen((String) getText(R.string.defeat));
@@ -185,6 +203,18 @@ public class CombatFragment extends Fragment implements EventManager.EventListen
         mMainText.setVisibility(View.GONE);
         mCountdownClock.setVisibility(View.VISIBLE);
         mSpellButtonView.setEnabled(true);
+        if (getResources().getBoolean(R.bool.spellcast_free_cast_enabled)) {
+            final PlayableCharacter user = model.getControlledCharacter();
+            app.getSpellAssetLoader().whenReady(new SpellAssetLoader.OnSpellsLoadedListener() {
+                @Override
+                public void onSpellsLoaded() {
+                    if (isAdded() && mSpellButtonView.isEnabled()) {
+                        mSpellDrawingView.setFreeCastSpells(user.getSpells(),
+                                user.getDifficultySetting());
+                    }
+                }
+            });
+        }
         model.setTurnData(turnData);
         CastSpellTimer timer = new CastSpellTimer(turnData.getTurnMilliseconds());
         timer.start();
@@ -192,15 +222,30 @@ public class CombatFragment extends Fragment implements EventManager.EventListen
 
     private void endPlayerTurn() {
         SpellcastApplication app = SpellcastApplication.getInstance();
-        SpellcastGameModel model = app.getGameModel();
+        final SpellcastGameModel model = app.getGameModel();
         mMainText.setVisibility(View.VISIBLE);
         mMainText.setText(getText(R.string.resolving_battle));
         mSpellButtonView.setEnabled(false);
         mSpellDrawingView.analyzeSpellOnEndTurn();
+        mSpellDrawingView.setFreeCastSpells(null, null);
         mSpellDrawingView.setSpell(null, null);
         mCountdownClock.updateArc(0);
         mCountdownClock.setVisibility(View.GONE);
-        model.getControlledCharacter().sendSpells();
+        // Spells are scored in the background and then queued on the model thread, so wait for
+        // every analysis of this turn to be delivered and send the spells from the model thread,
+        // after the casts it has queued.
+        final Executor modelExecutor = app.getModelExecutor();
+        app.getSpellAnalyzer().runAfterPendingAnalyses(new Runnable() {
+            @Override
+            public void run() {
+                modelExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        model.getControlledCharacter().sendSpells();
+                    }
+                });
+            }
+        });
     }
 
     private void onSpellsSent() {
@@ -217,15 +262,11 @@ public class CombatFragment extends Fragment implements EventManager.EventListen
         mSuccessFailImage.setVisibility(View.VISIBLE);
     }
 
-    private void onSpellCastSuccessful(Events.SpellEventData spellEventData) {
-        SpellcastApplication app = SpellcastApplication.getInstance();
-        SpellcastGameModel model = app.getGameModel();
-        Spell spell = spellEventData.getSpell();
-        if (!spell.cast(model.getControlledCharacter())) {
-            return;
-        }
-        model.getControlledCharacter().enqueueSpell(spellEventData);
-
+    /**
+     * Called once PlayableCharacter has queued a successfully cast spell to be sent, so the queue
+     * shown only holds spells that will be sent.
+     */
+    private void onSpellQueued(Events.SpellEventData spellEventData) {
         mSpellQueueAdapter.add(spellEventData);
         mSpellQueueAdapter.notifyDataSetChanged();
         mSpellButtonView.notifyDataSetChanged();
@@ -250,6 +291,7 @@ public class CombatFragment extends Fragment implements EventManager.EventListen
         mMainText.setVisibility(View.VISIBLE);
         mMainText.setText(message);
         mSpellButtonView.setEnabled(false);
+        mSpellDrawingView.setFreeCastSpells(null, null);
         mSpellDrawingView.setSpell(null, null);
         mCountdownClock.updateArc(0);
         mCountdownClock.setVisibility(View.GONE);
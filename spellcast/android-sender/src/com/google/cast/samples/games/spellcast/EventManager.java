@@ -13,16 +13,39 @@
 // limitations under the License.
 package com.google.cast.samples.games.spellcast;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.util.Pools;
+import android.view.Choreographer;
+
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
-import java.util.EnumMap;
-import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * An class for registering listeners for events and also handles calling those listeners when an
  * event is triggered. Note: This class is meant to be used as a static manager, so all the
  * listeners are weak referenced -- the user must keep a reference to their listener and manage its
  * removal from the manager.
+ *
+ * <p>The listeners of each event type are kept in a copy-on-write array, so triggering an event
+ * walks an immutable snapshot without allocating or locking. Adding and removing listeners is
+ * rare, thread-safe and copies the array. Listeners whose referent was collected are pruned when
+ * the array is next copied.
+ *
+ * <p>Listeners can be registered with an executor that events are delivered on, such as a
+ * {@link LooperExecutor} for the UI thread or a model thread. Listeners registered without one are
+ * called right away on the thread that triggers the event. Events triggered on the thread of the
+ * executor are delivered right away too, unless events posted from other threads are still
+ * waiting for the listener, so each listener sees events in the order they were triggered.
+ *
+ * <p>Events without data that only tell listeners to refresh, like GAME_MODEL_UPDATED, can be
+ * queued with {@link #queueEvent} instead. Queued events are coalesced and delivered once, on the
+ * UI thread, at the start of the next frame.
+ *
+ * <p>Event data that is sent often, like the spells cast during combat, is pooled. See
+ * {@link RecyclableEventData} for who owns a reference to it.
  */
 public class EventManager {
 
@@ -39,44 +62,232 @@ public class EventManager {
     public interface EventData {
     }
 
-    private final EnumMap<Events.EventType, ArrayList<WeakReference<EventListener>>>
-            mMessageListeners;
+    /**
+     * Event data that is recycled into a pool once nothing references it anymore.
+     *
+     * <p>Whoever acquires an instance from its pool owns one reference and passes it to
+     * {@link #triggerEvent(Events.EventType, EventData)}, which releases it once the event has been
+     * delivered. Listeners that keep the data after {@link EventListener#handleEvent} returns must
+     * {@link #retain()} it, and {@link #release()} it when they are done with it.
+     */
+    public abstract static class RecyclableEventData implements EventData {
+        private final AtomicInteger mReferenceCount = new AtomicInteger();
+
+        /**
+         * Called by subclasses when the data is handed out by its pool.
+         */
+        protected final void onAcquired() {
+            mReferenceCount.set(1);
+        }
+
+        public final void retain() {
+            if (mReferenceCount.getAndIncrement() <= 0) {
+                throw new IllegalStateException("Retained recycled event data " + this);
+            }
+        }
+
+        public final void release() {
+            int referenceCount = mReferenceCount.decrementAndGet();
+            if (referenceCount == 0) {
+                recycle();
+            } else if (referenceCount < 0) {
+                throw new IllegalStateException("Released recycled event data " + this);
+            }
+        }
+
+        /**
+         * Clears the data and returns it to its pool.
+         */
+        protected abstract void recycle();
+    }
+
+    /**
+     * Executor that delivers events right away on the thread that triggers them.
+     */
+    public static final Executor INLINE_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable runnable) {
+            runnable.run();
+        }
+    };
+
+    /**
+     * A listener and the executor it receives events on.
+     */
+    private static class Registration extends WeakReference<EventListener> {
+        final Executor mExecutor;
+        // Handler times of the listener class, only set when metrics are enabled.
+        final EventMetrics.Histogram mHandlerTimes;
+        // Set when the listener is removed, so events already posted to its executor are dropped.
+        volatile boolean mIsRemoved = false;
+        // Events posted to the executor that have not been delivered yet.
+        final AtomicInteger mPendingDeliveries = new AtomicInteger();
+
+        Registration(EventListener listener, Executor executor,
+                EventMetrics.Histogram handlerTimes) {
+            super(listener);
+            mExecutor = executor;
+            mHandlerTimes = handlerTimes;
+        }
+
+        /**
+         * @return True if events can be delivered right away on the current thread without
+         *         overtaking events that are waiting in the executor.
+         */
+        boolean canDeliverInline() {
+            return mExecutor == INLINE_EXECUTOR || (mExecutor instanceof LooperExecutor
+                    && ((LooperExecutor) mExecutor).isCurrentThread()
+                    && mPendingDeliveries.get() == 0);
+        }
+    }
+
+    /**
+     * An event waiting in the executor of a listener. These are pooled so that posting events to
+     * another thread does not allocate.
+     */
+    private final class Delivery implements Runnable {
+        Registration mRegistration;
+        EventListener mListener;
+        Events.EventType mEventType;
+        EventData mEventData;
+        long mQueuedNanos;
+
+        @Override
+        public void run() {
+            if (EventMetrics.ENABLED) {
+                mMetrics.recordQueueLatency(mEventType, System.nanoTime() - mQueuedNanos);
+            }
+            if (!mRegistration.mIsRemoved) {
+                deliver(mRegistration, mListener, mEventType, mEventData);
+            }
+            mRegistration.mPendingDeliveries.decrementAndGet();
+            if (mEventData instanceof RecyclableEventData) {
+                ((RecyclableEventData) mEventData).release();
+            }
+            mRegistration = null;
+            mListener = null;
+            mEventType = null;
+            mEventData = null;
+            mDeliveryPool.release(this);
+        }
+    }
+
+    private static final Registration[] NO_LISTENERS = new Registration[0];
+    private static final int MAX_POOLED_DELIVERIES = 16;
+
+    // The listeners of each event type, indexed by the ordinal of the event type. The arrays are
+    // never modified once published.
+    private final AtomicReferenceArray<Registration[]> mMessageListeners;
+
+    private final EventMetrics mMetrics;
+
+    private final Pools.SynchronizedPool<Delivery> mDeliveryPool =
+            new Pools.SynchronizedPool<>(MAX_POOLED_DELIVERIES);
+
+    private final Events.EventType[] mEventTypes;
+    private final Handler mMainHandler;
+    // Guards the queue below, which can be written from any thread.
+    private final Object mQueueLock = new Object();
+    // The ordinals of the queued event types in the order they were first queued.
+    private final int[] mQueuedEvents;
+    private final boolean[] mIsEventQueued;
+    private int mQueuedEventCount = 0;
+    private boolean mIsFrameCallbackPosted = false;
+    // Only used on the UI thread, to dispatch the queued events without holding the lock.
+    private final int[] mDispatchedEvents;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            dispatchQueuedEvents();
+        }
+    };
+
+    private final Runnable mPostFrameCallback = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    };
 
     public EventManager() {
-        mMessageListeners = new EnumMap<>(Events.EventType.class);
+        mEventTypes = Events.EventType.values();
+        mMessageListeners = new AtomicReferenceArray<>(mEventTypes.length);
+        for (int i = 0; i < mEventTypes.length; ++i) {
+            mMessageListeners.set(i, NO_LISTENERS);
+        }
+        mMainHandler = new Handler(Looper.getMainLooper());
+        mMetrics = EventMetrics.ENABLED ? new EventMetrics() : null;
+        mQueuedEvents = new int[mEventTypes.length];
+        mIsEventQueued = new boolean[mEventTypes.length];
+        mDispatchedEvents = new int[mEventTypes.length];
     }
 
     public void addEventListener(Events.EventType eventType, EventListener eventListener) {
-        ArrayList<WeakReference<EventListener>> listenerList = mMessageListeners.get(eventType);
-        if (listenerList == null) {
-            listenerList = new ArrayList<>();
-            mMessageListeners.put(eventType, listenerList);
+        addEventListener(eventType, eventListener, INLINE_EXECUTOR);
+    }
+
+    /**
+     * @param executor The executor the listener receives this event type on.
+     */
+    public void addEventListener(Events.EventType eventType, EventListener eventListener,
+            Executor executor) {
+        synchronized (this) {
+            int index = eventType.ordinal();
+            Registration[] listeners = mMessageListeners.get(index);
+            Registration[] newListeners = new Registration[listeners.length + 1];
+            int count = 0;
+            for (Registration listener : listeners) {
+                if (listener.get() != null) {
+                    newListeners[count++] = listener;
+                }
+            }
+            EventMetrics.Histogram handlerTimes = null;
+            if (EventMetrics.ENABLED) {
+                handlerTimes = mMetrics.getHandlerHistogram(eventListener.getClass());
+            }
+            newListeners[count++] = new Registration(eventListener, executor, handlerTimes);
+            mMessageListeners.set(index, trim(newListeners, count));
         }
-        listenerList.add(new WeakReference<>(eventListener));
     }
 
     public void addEventListener(Events.EventType[] eventTypes, EventListener eventListener) {
+        addEventListener(eventTypes, eventListener, INLINE_EXECUTOR);
+    }
+
+    /**
+     * @param executor The executor the listener receives these event types on.
+     */
+    public void addEventListener(Events.EventType[] eventTypes, EventListener eventListener,
+            Executor executor) {
         for (Events.EventType eventType : eventTypes) {
-            addEventListener(eventType, eventListener);
+            addEventListener(eventType, eventListener, executor);
         }
     }
 
     public void removeEventListener(Events.EventType eventType, EventListener eventListener) {
-        ArrayList<WeakReference<EventListener>> listenerList = mMessageListeners.get(eventType);
-        if (listenerList == null) {
-            return;
-        }
-
-        Iterator<WeakReference<EventListener>> iterator = listenerList.iterator();
-        while (iterator.hasNext()) {
-            WeakReference<EventListener> weakReferenceListener = iterator.next();
-            EventListener listener = weakReferenceListener.get();
-            if (listener == null) {
-                iterator.remove();
-            } else if (listener.equals(eventListener)) {
-                iterator.remove();
+        synchronized (this) {
+            int index = eventType.ordinal();
+            Registration[] listeners = mMessageListeners.get(index);
+            if (listeners.length == 0) {
                 return;
             }
+            Registration[] newListeners = new Registration[listeners.length];
+            int count = 0;
+            boolean removed = false;
+            for (Registration weakReferenceListener : listeners) {
+                EventListener listener = weakReferenceListener.get();
+                if (listener == null) {
+                    continue;
+                }
+                if (!removed && listener.equals(eventListener)) {
+                    removed = true;
+                    weakReferenceListener.mIsRemoved = true;
+                    continue;
+                }
+                newListeners[count++] = weakReferenceListener;
+            }
+            mMessageListeners.set(index, trim(newListeners, count));
         }
     }
 
@@ -90,25 +301,122 @@ public class EventManager {
         triggerEvent(eventType, null);
     }
 
+    /**
+     * Delivers an event to its listeners. If the event data is {@link RecyclableEventData}, the
+     * reference of the caller is released once the event has been delivered, so the caller must not
+     * use the data after this call.
+     */
     public void triggerEvent(Events.EventType eventType, EventData eventData) {
-        ArrayList<WeakReference<EventListener>> listenerList = mMessageListeners.get(eventType);
-        if (listenerList == null) {
-            return;
-        }
-        ArrayList<EventListener> listenersToTrigger = new ArrayList<>();
-        Iterator<WeakReference<EventListener>> iterator = listenerList.iterator();
-        while (iterator.hasNext()) {
-            WeakReference<EventListener> weakReferenceListener = iterator.next();
-            EventListener listener = weakReferenceListener.get();
+        if (EventMetrics.ENABLED) {
+            mMetrics.recordTrigger(eventType);
+        }
+        // Listeners added or removed while dispatching only see the events triggered after.
+        Registration[] listeners = mMessageListeners.get(eventType.ordinal());
+        for (int i = 0; i < listeners.length; ++i) {
+            Registration registration = listeners[i];
+            EventListener listener = registration.get();
             if (listener == null) {
-                iterator.remove();
+                continue;
+            }
+            if (EventMetrics.ENABLED) {
+                mMetrics.recordDelivery(eventType);
+            }
+            if (registration.canDeliverInline()) {
+                deliver(registration, listener, eventType, eventData);
             } else {
-                listenersToTrigger.add(listener);
+                Delivery delivery = mDeliveryPool.acquire();
+                if (delivery == null) {
+                    delivery = new Delivery();
+                }
+                delivery.mRegistration = registration;
+                delivery.mListener = listener;
+                delivery.mEventType = eventType;
+                delivery.mEventData = eventData;
+                if (EventMetrics.ENABLED) {
+                    delivery.mQueuedNanos = System.nanoTime();
+                }
+                // The delivery holds its own reference until the listener has handled the event.
+                if (eventData instanceof RecyclableEventData) {
+                    ((RecyclableEventData) eventData).retain();
+                }
+                registration.mPendingDeliveries.incrementAndGet();
+                registration.mExecutor.execute(delivery);
             }
         }
+        if (eventData instanceof RecyclableEventData) {
+            ((RecyclableEventData) eventData).release();
+        }
+    }
 
-        for (EventListener listener : listenersToTrigger) {
+    private static void deliver(Registration registration, EventListener listener,
+            Events.EventType eventType, EventData eventData) {
+        if (EventMetrics.ENABLED) {
+            long startNanos = System.nanoTime();
             listener.handleEvent(eventType, eventData);
+            registration.mHandlerTimes.record(System.nanoTime() - startNanos);
+        } else {
+            listener.handleEvent(eventType, eventData);
+        }
+    }
+
+    /**
+     * @return The dispatch metrics, or null unless {@link EventMetrics#ENABLED} is true.
+     */
+    public EventMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Queues an event without data to be triggered on the UI thread at the start of the next
+     * frame. Queuing an event that is already queued does nothing, so a burst of updates is
+     * delivered only once. Use this for events that just tell listeners to refresh. This can be
+     * called from any thread.
+     */
+    public void queueEvent(Events.EventType eventType) {
+        int index = eventType.ordinal();
+        synchronized (mQueueLock) {
+            if (mIsEventQueued[index]) {
+                return;
+            }
+            mIsEventQueued[index] = true;
+            mQueuedEvents[mQueuedEventCount++] = index;
+            if (mIsFrameCallbackPosted) {
+                return;
+            }
+            mIsFrameCallbackPosted = true;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            mPostFrameCallback.run();
+        } else {
+            mMainHandler.post(mPostFrameCallback);
+        }
+    }
+
+    private void dispatchQueuedEvents() {
+        int count;
+        synchronized (mQueueLock) {
+            count = mQueuedEventCount;
+            System.arraycopy(mQueuedEvents, 0, mDispatchedEvents, 0, count);
+            for (int i = 0; i < count; ++i) {
+                mIsEventQueued[mQueuedEvents[i]] = false;
+            }
+            mQueuedEventCount = 0;
+            mIsFrameCallbackPosted = false;
+        }
+        for (int i = 0; i < count; ++i) {
+            triggerEvent(mEventTypes[mDispatchedEvents[i]], null);
+        }
+    }
+
+    private static Registration[] trim(Registration[] listeners, int count) {
+        if (count == 0) {
+            return NO_LISTENERS;
+        }
+        if (count == listeners.length) {
+            return listeners;
         }
+        Registration[] trimmed = new Registration[count];
+        System.arraycopy(listeners, 0, trimmed, 0, count);
+        return trimmed;
     }
 }
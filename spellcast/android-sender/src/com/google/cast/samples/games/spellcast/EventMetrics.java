@@ -0,0 +1,300 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Dispatch metrics for an {@link EventManager}: how often each event type is triggered, how many
+ * listeners it reaches, how long deferred deliveries wait in their executor, and how long the
+ * handlers of each listener class take. Times are kept in histograms with power of two nanosecond
+ * buckets.
+ *
+ * <p>Recording is allocation free. Every call site checks {@link #ENABLED} first, so when it is
+ * false the compiler removes the instrumentation entirely.
+ */
+public class EventMetrics {
+    /**
+     * Turns the instrumentation on. This must stay a compile time constant.
+     */
+    public static final boolean ENABLED = false;
+
+    private static final String TAG = "EventMetrics";
+
+    // Bucket i counts the times between 2^i and 2^(i+1) - 1 nanoseconds.
+    private static final int HISTOGRAM_BUCKETS = 64;
+
+    /**
+     * Histogram of durations in nanoseconds, safe to record into from any thread.
+     */
+    public static class Histogram {
+        private final AtomicLongArray mBuckets = new AtomicLongArray(HISTOGRAM_BUCKETS);
+        // The count, total and maximum of the recorded times.
+        private final AtomicLongArray mTotals = new AtomicLongArray(3);
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            mBuckets.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos | 1));
+            mTotals.incrementAndGet(0);
+            mTotals.addAndGet(1, nanos);
+            long max;
+            do {
+                max = mTotals.get(2);
+            } while (nanos > max && !mTotals.compareAndSet(2, max, nanos));
+        }
+
+        HistogramSnapshot snapshot(String name) {
+            long[] buckets = new long[HISTOGRAM_BUCKETS];
+            for (int i = 0; i < HISTOGRAM_BUCKETS; ++i) {
+                buckets[i] = mBuckets.get(i);
+            }
+            return new HistogramSnapshot(name, buckets, mTotals.get(0), mTotals.get(1),
+                    mTotals.get(2));
+        }
+    }
+
+    /**
+     * Point in time copy of a histogram.
+     */
+    public static class HistogramSnapshot {
+        private final String mName;
+        private final long[] mBuckets;
+        private final long mCount;
+        private final long mTotalNanos;
+        private final long mMaxNanos;
+
+        HistogramSnapshot(String name, long[] buckets, long count, long totalNanos,
+                long maxNanos) {
+            mName = name;
+            mBuckets = buckets;
+            mCount = count;
+            mTotalNanos = totalNanos;
+            mMaxNanos = maxNanos;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * @return The number of times in each bucket, where bucket i holds the times between 2^i
+         *         and 2^(i+1) - 1 nanoseconds.
+         */
+        public long[] getBuckets() {
+            return mBuckets.clone();
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getTotalNanos() {
+            return mTotalNanos;
+        }
+
+        public long getMaxNanos() {
+            return mMaxNanos;
+        }
+
+        /**
+         * @param fraction The percentile as a fraction between 0 and 1.
+         * @return An upper bound of the percentile, rounded up to a power of two.
+         */
+        public long getPercentileNanos(double fraction) {
+            long target = (long) Math.ceil(mCount * fraction);
+            long seen = 0;
+            for (int i = 0; i < mBuckets.length; ++i) {
+                seen += mBuckets[i];
+                if (seen >= target && seen > 0) {
+                    return i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            long averageNanos = mCount > 0 ? mTotalNanos / mCount : 0;
+            return mName + ": count=" + mCount + " avg=" + averageNanos + "ns p50<="
+                    + getPercentileNanos(0.5) + "ns p99<=" + getPercentileNanos(0.99)
+                    + "ns max=" + mMaxNanos + "ns";
+        }
+    }
+
+    /**
+     * Point in time copy of all the metrics.
+     */
+    public static class Snapshot {
+        private final Events.EventType[] mEventTypes;
+        private final long[] mTriggerCounts;
+        private final long[] mDeliveryCounts;
+        private final List<HistogramSnapshot> mQueueLatencies;
+        private final List<HistogramSnapshot> mHandlerTimes;
+
+        Snapshot(Events.EventType[] eventTypes, long[] triggerCounts, long[] deliveryCounts,
+                List<HistogramSnapshot> queueLatencies, List<HistogramSnapshot> handlerTimes) {
+            mEventTypes = eventTypes;
+            mTriggerCounts = triggerCounts;
+            mDeliveryCounts = deliveryCounts;
+            mQueueLatencies = Collections.unmodifiableList(queueLatencies);
+            mHandlerTimes = Collections.unmodifiableList(handlerTimes);
+        }
+
+        public long getTriggerCount(Events.EventType eventType) {
+            return mTriggerCounts[eventType.ordinal()];
+        }
+
+        /**
+         * @return How many listeners the event type was delivered to in total, the fan-out.
+         */
+        public long getDeliveryCount(Events.EventType eventType) {
+            return mDeliveryCounts[eventType.ordinal()];
+        }
+
+        /**
+         * @return For each event type, how long deliveries to listeners on another thread waited
+         *         before their handler started.
+         */
+        public List<HistogramSnapshot> getQueueLatencies() {
+            return mQueueLatencies;
+        }
+
+        /**
+         * @return For each listener class, how long its handler took.
+         */
+        public List<HistogramSnapshot> getHandlerTimes() {
+            return mHandlerTimes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("Event metrics");
+            for (Events.EventType eventType : mEventTypes) {
+                int index = eventType.ordinal();
+                if (mTriggerCounts[index] > 0) {
+                    builder.append("\n  ").append(eventType).append(": triggered=")
+                            .append(mTriggerCounts[index]).append(" delivered=")
+                            .append(mDeliveryCounts[index]);
+                }
+            }
+            for (HistogramSnapshot histogram : mQueueLatencies) {
+                builder.append("\n  queued ").append(histogram);
+            }
+            for (HistogramSnapshot histogram : mHandlerTimes) {
+                builder.append("\n  handler ").append(histogram);
+            }
+            return builder.toString();
+        }
+    }
+
+    private final Events.EventType[] mEventTypes;
+    private final AtomicLongArray mTriggerCounts;
+    private final AtomicLongArray mDeliveryCounts;
+    private final Histogram[] mQueueLatencies;
+    // Only accessed when listeners are added and when taking a snapshot.
+    private final HashMap<Class<?>, Histogram> mHandlerTimes = new HashMap<>();
+
+    private Handler mDumpHandler;
+    private long mDumpIntervalMillis;
+    private final Runnable mDumpRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Log.d(TAG, getSnapshot().toString());
+            mDumpHandler.postDelayed(this, mDumpIntervalMillis);
+        }
+    };
+
+    public EventMetrics() {
+        mEventTypes = Events.EventType.values();
+        mTriggerCounts = new AtomicLongArray(mEventTypes.length);
+        mDeliveryCounts = new AtomicLongArray(mEventTypes.length);
+        mQueueLatencies = new Histogram[mEventTypes.length];
+        for (int i = 0; i < mEventTypes.length; ++i) {
+            mQueueLatencies[i] = new Histogram();
+        }
+    }
+
+    /**
+     * @return The histogram to record the handler times of listeners of this class into. Call
+     *         this when the listener is added, not when dispatching.
+     */
+    synchronized Histogram getHandlerHistogram(Class<?> listenerClass) {
+        Histogram histogram = mHandlerTimes.get(listenerClass);
+        if (histogram == null) {
+            histogram = new Histogram();
+            mHandlerTimes.put(listenerClass, histogram);
+        }
+        return histogram;
+    }
+
+    void recordTrigger(Events.EventType eventType) {
+        mTriggerCounts.incrementAndGet(eventType.ordinal());
+    }
+
+    void recordDelivery(Events.EventType eventType) {
+        mDeliveryCounts.incrementAndGet(eventType.ordinal());
+    }
+
+    void recordQueueLatency(Events.EventType eventType, long nanos) {
+        mQueueLatencies[eventType.ordinal()].record(nanos);
+    }
+
+    public synchronized Snapshot getSnapshot() {
+        long[] triggerCounts = new long[mEventTypes.length];
+        long[] deliveryCounts = new long[mEventTypes.length];
+        List<HistogramSnapshot> queueLatencies = new ArrayList<>();
+        for (int i = 0; i < mEventTypes.length; ++i) {
+            triggerCounts[i] = mTriggerCounts.get(i);
+            deliveryCounts[i] = mDeliveryCounts.get(i);
+            HistogramSnapshot latency = mQueueLatencies[i].snapshot(mEventTypes[i].toString());
+            if (latency.getCount() > 0) {
+                queueLatencies.add(latency);
+            }
+        }
+        List<HistogramSnapshot> handlerTimes = new ArrayList<>();
+        for (Map.Entry<Class<?>, Histogram> entry : mHandlerTimes.entrySet()) {
+            handlerTimes.add(entry.getValue().snapshot(entry.getKey().getName()));
+        }
+        return new Snapshot(mEventTypes, triggerCounts, deliveryCounts, queueLatencies,
+                handlerTimes);
+    }
+
+    /**
+     * Logs a snapshot of the metrics every intervalMillis until {@link #stopPeriodicDump()}.
+     */
+    public void startPeriodicDump(long intervalMillis) {
+        stopPeriodicDump();
+        mDumpHandler = new Handler(Looper.getMainLooper());
+        mDumpIntervalMillis = intervalMillis;
+        mDumpHandler.postDelayed(mDumpRunnable, intervalMillis);
+    }
+
+    public void stopPeriodicDump() {
+        if (mDumpHandler != null) {
+            mDumpHandler.removeCallbacks(mDumpRunnable);
+            mDumpHandler = null;
+        }
+    }
+}
@@ -13,11 +13,15 @@
 // limitations under the License.
 package com.google.cast.samples.games.spellcast;
 
+import com.google.cast.samples.games.spellcast.messages.JsonSink;
+import com.google.cast.samples.games.spellcast.messages.MessageSchema;
 import com.google.cast.samples.games.spellcast.messages.SpellCastMessage;
 import com.google.cast.samples.games.spellcast.messages.SpellCastMessage.PlayerBonus;
 import com.google.cast.samples.games.spellcast.messages.SpellCastMessage.SpellAccuracy;
 import com.google.cast.samples.games.spellcast.spells.Spell;
 
+import android.support.v4.util.Pools;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -32,6 +36,7 @@ public class Events {
     public enum EventType {
         SPELL_CAST_SUCCESSFUL,
         SPELL_CAST_FAIL,
+        SPELL_QUEUED,
         SPELLS_SENT,
         START_PLAYER_TURN,
         END_PLAYER_TURN,
@@ -45,19 +50,45 @@ public class Events {
     }
 
     /**
-     * Event Data used to pass a spell as data.
+     * Event Data used to pass a spell as data. Instances are pooled, see
+     * {@link EventManager.RecyclableEventData}.
      */
-    public static class SpellEventData implements EventManager.EventData {
-        private final Spell mSpell;
-        private final SpellAccuracy mAccuracy;
+    public static class SpellEventData extends EventManager.RecyclableEventData {
+        // A turn rarely has more spells queued than this.
+        private static final int MAX_POOLED = 32;
+        private static final Pools.SynchronizedPool<SpellEventData> sPool =
+                new Pools.SynchronizedPool<>(MAX_POOLED);
+
+        private Spell mSpell;
+        private SpellAccuracy mAccuracy;
+
+        private static final String KEY_SPELL_TYPE = MessageSchema.Spell.KEY_SPELL_TYPE;
+        private static final String KEY_SPELL_ELEMENT = MessageSchema.Spell.KEY_SPELL_ELEMENT;
+        private static final String KEY_SPELL_ACCURACY = MessageSchema.Spell.KEY_SPELL_ACCURACY;
+
+        private SpellEventData() {
+        }
 
-        private static final String KEY_SPELL_TYPE = "spellType";
-        private static final String KEY_SPELL_ELEMENT = "spellElement";
-        private static final String KEY_SPELL_ACCURACY = "spellAccuracy";
+        /**
+         * @return Spell event data from the pool, owned by the caller until it is passed to
+         *         {@link EventManager#triggerEvent} or released.
+         */
+        public static SpellEventData acquire(Spell spell, SpellAccuracy accuracy) {
+            SpellEventData spellEventData = sPool.acquire();
+            if (spellEventData == null) {
+                spellEventData = new SpellEventData();
+            }
+            spellEventData.mSpell = spell;
+            spellEventData.mAccuracy = accuracy;
+            spellEventData.onAcquired();
+            return spellEventData;
+        }
 
-        public SpellEventData(Spell spell, SpellAccuracy accuracy) {
-            mSpell = spell;
-            mAccuracy = accuracy;
+        @Override
+        protected void recycle() {
+            mSpell = null;
+            mAccuracy = null;
+            sPool.release(this);
         }
 
         public Spell getSpell() {
@@ -83,18 +114,57 @@ public class Events {
 
             return serialized;
         }
+
+        /**
+         * Writes the same JSON as {@link #toJSON()} into a sink.
+         */
+        public void writeTo(JsonSink sink) {
+            sink.beginObject()
+                    .name(KEY_SPELL_TYPE)
+                    .value(SpellCastMessage.spellCastEnumToInt(mSpell.getType()))
+                    .name(KEY_SPELL_ELEMENT)
+                    .value(SpellCastMessage.spellCastEnumToInt(mSpell.getElement()))
+                    .name(KEY_SPELL_ACCURACY)
+                    .value(SpellCastMessage.spellCastEnumToInt(mAccuracy))
+                    .endObject();
+        }
     }
 
     /**
-     * Event Data used to pass data when we trigger a Start Player Turn Event.
+     * Event Data used to pass data when we trigger a Start Player Turn Event. Instances are pooled,
+     * see {@link EventManager.RecyclableEventData}.
      */
-    public static class StartTurnData implements EventManager.EventData {
-        private final int mTurnMilliseconds;
-        private final PlayerBonus mPlayerBonus;
+    public static class StartTurnData extends EventManager.RecyclableEventData {
+        private static final int MAX_POOLED = 2;
+        private static final Pools.SynchronizedPool<StartTurnData> sPool =
+                new Pools.SynchronizedPool<>(MAX_POOLED);
+
+        private int mTurnMilliseconds;
+        private PlayerBonus mPlayerBonus;
+
+        private StartTurnData() {
+        }
+
+        /**
+         * @return Turn data from the pool, owned by the caller until it is passed to
+         *         {@link EventManager#triggerEvent} or released.
+         */
+        public static StartTurnData acquire(int turnMilliseconds, PlayerBonus playerBonus) {
+            StartTurnData turnData = sPool.acquire();
+            if (turnData == null) {
+                turnData = new StartTurnData();
+            }
+            turnData.mTurnMilliseconds = turnMilliseconds;
+            turnData.mPlayerBonus = playerBonus;
+            turnData.onAcquired();
+            return turnData;
+        }
 
-        public StartTurnData(int turnMilliseconds, PlayerBonus playerBonus) {
-            mTurnMilliseconds = turnMilliseconds;
-            mPlayerBonus = playerBonus;
+        @Override
+        protected void recycle() {
+            mTurnMilliseconds = 0;
+            mPlayerBonus = null;
+            sPool.release(this);
         }
 
         public int getTurnMilliseconds() {
@@ -14,20 +14,18 @@
 
 package com.google.cast.samples.games.spellcast;
 
+import com.google.cast.samples.games.spellcast.runes.RunePixels;
+
 import android.graphics.Bitmap;
-import android.graphics.Color;
 
 /**
- * Utility for bitmap operations.
+ * Utility for bitmap operations. The conversions themselves live in {@link RunePixels}, which has
+ * no Android dependencies.
  */
 public class ImageUtil {
 
     // All images are converted to a byte array that is RESOLUTION x RESOLUTION
-    public static final int RESOLUTION = 64;
-
-    // Float threshold at which we count the image as having something at a particular pixel block.
-    // This is compared against the average alpha of an image's pixels in a block.
-    private static final float THRESHOLD = 0.001f;
+    public static final int RESOLUTION = RunePixels.RESOLUTION;
 
     /**
      * @param bitmap The bitmap to use to convert to a byte array of data.
@@ -35,25 +33,16 @@ public class ImageUtil {
      *         something is there in that pixel chunk and 0 means that pixel chunk is mostly empty.
      */
     public static byte[][] getPixelData(Bitmap bitmap) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-        int[] pixels = new int[width * height];
-        bitmap.getPixels(pixels, 0, height, 0, 0, width, height);
-
-        int dataWidth = width / RESOLUTION;
-        int dataHeight = height / RESOLUTION;
-
-        byte[][] data = new byte[RESOLUTION][RESOLUTION];
-
-        for (int i = 0; i < RESOLUTION; ++i) {
-            for (int j = 0; j < RESOLUTION; ++j) {
-                int pixelStartPoint = i * dataWidth * width + j * dataHeight;
-                float average = getAverage(pixels, pixelStartPoint, dataWidth, dataHeight, width);
-                data[i][j] = average > THRESHOLD ? (byte) 1 : (byte) 0;
-            }
-        }
+        return RunePixels.getPixelData(getPixels(bitmap), bitmap.getWidth(), bitmap.getHeight());
+    }
 
-        return data;
+    /**
+     * @param bitmap The bitmap to convert to a bit mask.
+     * @return The same data as {@link #getPixelData(Bitmap)} packed one long per row, where bit
+     *         {@code j} of element {@code i} is set when block {@code [i][j]} has something in it.
+     */
+    public static long[] getPixelMask(Bitmap bitmap) {
+        return RunePixels.getPixelMask(getPixels(bitmap), bitmap.getWidth(), bitmap.getHeight());
     }
 
     /**
@@ -62,54 +51,14 @@ public class ImageUtil {
      * @return The number of bytes that differ between drawn and target.
      */
     public static float comparePixelData(byte[][] drawn, byte[][] target) {
-        int numFilledPixelsTarget = 0;
-        int score = 0;
-
-        for (int i = 0; i < drawn.length; ++i) {
-            for (int j = 0; j < target.length; ++j) {
-
-                if (target[i][j] != 0) {
-                    numFilledPixelsTarget++;
-                    if (drawn[i][j] != 0) {
-                        score++;
-                    }
-                } else {
-                    if (drawn[i][j] != 0) {
-                        score--;
-                    }
-                }
-            }
-        }
-
-        float percentage = score * 100 / (float) numFilledPixelsTarget;
-        return percentage;
-    }
-
-    private static float getAverage(int[] pixels, int startPoint, int blockWidth, int blockHeight,
-            int bitmapWidth) {
-        float average = 0;
-        for (int i = 0; i < blockWidth; ++i) {
-            for (int j = 0; j < blockHeight; ++j) {
-                int colorAtIJ = pixels[startPoint + i * bitmapWidth + j];
-                average += getPixelFillValue(colorAtIJ);
-            }
-        }
-
-        float pixelsPerBlock = blockWidth * blockHeight;
-        average = average / pixelsPerBlock;
-
-        return average;
+        return RunePixels.comparePixelData(drawn, target);
     }
 
-    /**
-     * @param color Int color to analyze.
-     * @return Either 1 or 0 depending on how we determine if the particular color has enough alpha
-     *         to be considered filled.
-     */
-    private static int getPixelFillValue(int color) {
-        if (Color.alpha(color) > 0) {
-            return 1;
-        }
-        return 0;
+    private static int[] getPixels(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, height, 0, 0, width, height);
+        return pixels;
     }
 }
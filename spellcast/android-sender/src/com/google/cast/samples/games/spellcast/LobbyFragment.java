@@ -55,7 +55,8 @@ public class LobbyFragment extends Fragment implements EventManager.EventListene
         super.onResume();
         updateView();
         EventManager eventManager = SpellcastApplication.getInstance().getEventManager();
-        eventManager.addEventListener(HANDLED_EVENTS, this);
+        eventManager.addEventListener(HANDLED_EVENTS, this,
+                SpellcastApplication.getInstance().getMainExecutor());
     }
 
     @Override
@@ -0,0 +1,49 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that runs tasks on the thread of a looper. Tasks submitted from that thread run right
+ * away, and tasks submitted from any other thread are posted to it in order.
+ */
+public class LooperExecutor implements Executor {
+    private final Looper mLooper;
+    private final Handler mHandler;
+
+    public LooperExecutor(Looper looper) {
+        mLooper = looper;
+        mHandler = new Handler(looper);
+    }
+
+    /**
+     * @return True if this is called on the thread of the looper.
+     */
+    public boolean isCurrentThread() {
+        return Looper.myLooper() == mLooper;
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        if (isCurrentThread()) {
+            runnable.run();
+        } else {
+            mHandler.post(runnable);
+        }
+    }
+}
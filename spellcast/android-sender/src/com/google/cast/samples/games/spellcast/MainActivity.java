@@ -88,7 +88,8 @@ public class MainActivity extends ActionBarActivity implements
         mCastConnectionManager.addObserver(this);
         mCastConnectionManager.startScan();
         EventManager eventManager = SpellcastApplication.getInstance().getEventManager();
-        eventManager.addEventListener(HANDLED_EVENTS, this);
+        eventManager.addEventListener(HANDLED_EVENTS, this,
+                SpellcastApplication.getInstance().getMainExecutor());
         if (mNextFragment != null) {
             showFragment(mNextFragment);
         } else {
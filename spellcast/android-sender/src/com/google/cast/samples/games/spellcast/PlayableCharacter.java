@@ -28,6 +28,8 @@ import com.google.cast.samples.games.spellcast.spells.SpellDeclarations;
 import android.content.SharedPreferences;
 import android.util.Log;
 
+import org.json.JSONObject;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,6 +55,22 @@ public class PlayableCharacter {
 
     private PendingResult<GameManagerClient.GameManagerResult> mPlayerRequestPendingResult;
 
+    // Queues successfully cast spells. This runs on the model thread, which is also where the
+    // queued spells are sent from, so the spell queue is only ever touched by that thread.
+    private final EventManager.EventListener mSpellCastListener =
+            new EventManager.EventListener() {
+                @Override
+                public void handleEvent(EventType eventType, EventManager.EventData eventData) {
+                    SpellEventData spellEventData = (SpellEventData) eventData;
+                    if (spellEventData.getSpell().cast(PlayableCharacter.this)) {
+                        enqueueSpell(spellEventData);
+                        // Triggering hands over a reference, so take one for the event.
+                        spellEventData.retain();
+                        mEventManager.triggerEvent(EventType.SPELL_QUEUED, spellEventData);
+                    }
+                }
+            };
+
     public PlayableCharacter(CastConnectionManager castConnectionManager,
             EventManager eventManager) {
         mCastConnectionManager = castConnectionManager;
@@ -65,6 +83,9 @@ public class PlayableCharacter {
         mSpells.add(SpellDeclarations.sWaterAttackSpell);
         mSpells.add(SpellDeclarations.sShieldSpell);
         mSpells.add(SpellDeclarations.sAirAttackSpell);
+
+        mEventManager.addEventListener(EventType.SPELL_CAST_SUCCESSFUL, mSpellCastListener,
+                SpellcastApplication.getInstance().getModelExecutor());
     }
 
     public void setName(String name) {
@@ -75,15 +96,42 @@ public class PlayableCharacter {
         return mSpells;
     }
 
+    /**
+     * Queues a spell to be sent at the end of the turn. Spells cast by the player are queued on the
+     * model thread when SPELL_CAST_SUCCESSFUL is triggered, and SPELL_QUEUED is triggered once they
+     * are.
+     */
     public void enqueueSpell(SpellEventData spellEventData) {
         mCastSpellsMessage.addSpell(spellEventData);
     }
 
+    /**
+     * @param enabled True to send spells to the receiver packed, see
+     *            {@link CastSpellsMessage#setPackedEncodingEnabled}.
+     */
+    public void setPackedSpellsEnabled(final boolean enabled) {
+        // The spell queue is only touched on the model thread.
+        SpellcastApplication.getInstance().getModelExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                mCastSpellsMessage.setPackedEncodingEnabled(enabled);
+            }
+        });
+    }
+
+    /**
+     * Sends the queued spells to the receiver. Call this on the model thread, see
+     * {@link SpellcastApplication#getModelExecutor()}.
+     */
     public void sendSpells() {
-        Log.i(TAG, "Sending game message : " + mCastSpellsMessage.toJSON());
+        // The spells were serialized as they were queued, so this only assembles the message.
+        JSONObject message = mCastSpellsMessage.getCachedJSON();
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Sending game message : " + mCastSpellsMessage);
+        }
         final GameManagerClient gameManagerClient =
                 mCastConnectionManager.getGameManagerClient();
-        gameManagerClient.sendGameRequest(mCastSpellsMessage.toJSON());
+        gameManagerClient.sendGameRequest(message);
         mCastSpellsMessage.clear();
         EventManager eventManager = SpellcastApplication.getInstance().getEventManager();
         eventManager.triggerEvent(EventType.SPELLS_SENT);
@@ -143,7 +191,7 @@ public class PlayableCharacter {
                             if (result.getStatus().isSuccess()) {
                                 mPlayerState = gameManagerClient.getCurrentState().getPlayer(
                                         result.getPlayerId()).getPlayerState();
-                                mEventManager.triggerEvent(EventType.GAME_MODEL_UPDATED);
+                                mEventManager.queueEvent(EventType.GAME_MODEL_UPDATED);
                             } else {
                                 Log.w(TAG, "Player available request failed");
                                 SpellcastApplication app = SpellcastApplication.getInstance();
@@ -167,7 +215,7 @@ public class PlayableCharacter {
                 mCharacterAvatarIndex);
 
         if (mCastConnectionManager.isConnectedToReceiver() && mPlayerRequestPendingResult == null) {
-            Log.i(TAG, "Sending player ready message : " + playerReadyMessage.toJSON());
+            Log.i(TAG, "Sending player ready message : " + playerReadyMessage);
             final GameManagerClient gameManagerClient =
                     mCastConnectionManager.getGameManagerClient();
             mPlayerRequestPendingResult =
@@ -180,7 +228,7 @@ public class PlayableCharacter {
                     if (result.getStatus().isSuccess()) {
                         mPlayerState = gameManagerClient.getCurrentState().getPlayer(
                                 result.getPlayerId()).getPlayerState();
-                        mEventManager.triggerEvent(Events.EventType.GAME_MODEL_UPDATED);
+                        mEventManager.queueEvent(Events.EventType.GAME_MODEL_UPDATED);
                     }
                 }
             });
@@ -194,7 +242,7 @@ public class PlayableCharacter {
         PlayerPlayingMessage startGameMessage = new PlayerPlayingMessage(getDifficultySetting());
 
         if (mCastConnectionManager.isConnectedToReceiver() && mPlayerRequestPendingResult == null) {
-            Log.i(TAG, "Sending player playing message : " + startGameMessage.toJSON());
+            Log.i(TAG, "Sending player playing message : " + startGameMessage);
             final GameManagerClient gameManagerClient =
                     mCastConnectionManager.getGameManagerClient();
             mPlayerRequestPendingResult =
@@ -207,7 +255,7 @@ public class PlayableCharacter {
                             if (result.getStatus().isSuccess()) {
                                 mPlayerState = gameManagerClient.getCurrentState().getPlayer(
                                         result.getPlayerId()).getPlayerState();
-                                mEventManager.triggerEvent(Events.EventType.GAME_MODEL_UPDATED);
+                                mEventManager.queueEvent(Events.EventType.GAME_MODEL_UPDATED);
                             }
                         }
                     });
@@ -0,0 +1,203 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast;
+
+import com.google.cast.samples.games.spellcast.runes.RuneDrawing;
+import com.google.cast.samples.games.spellcast.spells.Spell;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Scores drawn runes on a background worker and delivers the results back on the UI thread. There
+ * is a single worker, so results are always delivered in the order the spells were cast. When the
+ * player did not pick a spell, the worker classifies the drawing by scoring it against every
+ * candidate spell in parallel on a small pool.
+ */
+public class SpellAnalyzer {
+
+    /**
+     * Listener called on the UI thread when a drawn rune has been scored.
+     */
+    public interface OnSpellAnalyzedListener {
+        /**
+         * @param spell The spell the player was drawing, or null if a drawing was classified and
+         *            matched no spell.
+         * @param percentageScore The score of the drawing, see {@link Spell#getRuneScore}.
+         */
+        void onSpellAnalyzed(Spell spell, float percentageScore);
+    }
+
+    private static final String TAG = "SpellAnalyzer";
+    private static final String THREAD_NAME = "SpellAnalyzer";
+    private static final String CLASSIFIER_THREAD_NAME = "SpellClassifier";
+    private static final int MAX_CLASSIFIER_THREADS = 4;
+    // Delivered when a drawing could not be scored, below every accuracy threshold.
+    private static final float FAILED_SCORE = 0f;
+
+    private final ExecutorService mExecutor;
+    private final ExecutorService mClassifierExecutor;
+    private final Handler mMainHandler;
+
+    public SpellAnalyzer() {
+        mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, THREAD_NAME);
+            }
+        });
+        int classifierThreads = Math.max(1,
+                Math.min(MAX_CLASSIFIER_THREADS, Runtime.getRuntime().availableProcessors()));
+        mClassifierExecutor = Executors.newFixedThreadPool(classifierThreads,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        return new Thread(runnable, CLASSIFIER_THREAD_NAME);
+                    }
+                });
+        mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Scores a drawing in the background with the rune scorer of the spell.
+     *
+     * @param spell The spell the player was drawing.
+     * @param drawing A snapshot of what the player drew.
+     * @param listener Called on the UI thread with the score, which fails every accuracy threshold
+     *            if the drawing could not be scored.
+     */
+    public void analyze(final Spell spell, final RuneDrawing drawing,
+            final OnSpellAnalyzedListener listener) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                float score;
+                try {
+                    score = spell.getRuneScore(drawing);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to score a rune.", e);
+                    score = FAILED_SCORE;
+                }
+                final float percentageScore = score;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onSpellAnalyzed(spell, percentageScore);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Finds the spell the drawing matches best. Spells that take a different number of strokes than
+     * the drawing are rejected without being scored, and the rest are scored in parallel.
+     *
+     * @param candidates The spells the player may have drawn.
+     * @param drawing A snapshot of what the player drew.
+     * @param listener Called on the UI thread with the best matching spell and its score, or with
+     *            a null spell if no candidate has the right number of strokes.
+     */
+    public void classify(List<Spell> candidates, final RuneDrawing drawing,
+            final OnSpellAnalyzedListener listener) {
+        final List<Spell> spells = new ArrayList<>(candidates);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Spell bestSpell = null;
+                float bestScore = -Float.MAX_VALUE;
+                List<Callable<Float>> tasks = new ArrayList<>();
+                final List<Spell> scoredSpells = new ArrayList<>();
+                for (final Spell spell : spells) {
+                    if (spell.getNumDrawStrokes() != drawing.getStrokeCount()) {
+                        continue;
+                    }
+                    scoredSpells.add(spell);
+                    tasks.add(new Callable<Float>() {
+                        @Override
+                        public Float call() {
+                            return spell.getRuneScore(drawing);
+                        }
+                    });
+                }
+                try {
+                    List<Future<Float>> scores = mClassifierExecutor.invokeAll(tasks);
+                    for (int i = 0; i < scores.size(); ++i) {
+                        float score = scores.get(i).get();
+                        if (score > bestScore) {
+                            bestScore = score;
+                            bestSpell = scoredSpells.get(i);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    Log.w(TAG, "Interrupted while classifying a rune.");
+                } catch (ExecutionException e) {
+                    Log.w(TAG, "Failed to score a rune: " + e.getCause());
+                }
+
+                final Spell spell = bestSpell;
+                final float percentageScore = bestScore;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onSpellAnalyzed(spell, percentageScore);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Delivers a score that is already known, such as the live score of a drawing. It is still
+     * delivered after the results of every analysis requested before this call, so results keep
+     * arriving in cast order.
+     *
+     * @param spell The spell the player was drawing.
+     * @param percentageScore The score of the drawing.
+     * @param listener Called on the UI thread with the score.
+     */
+    public void deliver(final Spell spell, final float percentageScore,
+            final OnSpellAnalyzedListener listener) {
+        runAfterPendingAnalyses(new Runnable() {
+            @Override
+            public void run() {
+                listener.onSpellAnalyzed(spell, percentageScore);
+            }
+        });
+    }
+
+    /**
+     * Runs the passed in runnable on the UI thread once the results of every analysis requested
+     * before this call have been delivered.
+     */
+    public void runAfterPendingAnalyses(final Runnable runnable) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mMainHandler.post(runnable);
+            }
+        });
+    }
+}
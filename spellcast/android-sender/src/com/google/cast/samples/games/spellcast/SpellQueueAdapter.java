@@ -20,8 +20,11 @@ import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.ImageView;
 
+import java.util.Collection;
+
 /**
- * An adapter for the Spell Queue used in combat.
+ * An adapter for the Spell Queue used in combat. The adapter keeps a reference to the spells it
+ * shows until it is cleared, see {@link EventManager.RecyclableEventData}.
  */
 public class SpellQueueAdapter extends ArrayAdapter<Events.SpellEventData> {
     private LayoutInflater mLayoutInflater;
@@ -31,6 +34,50 @@ public class SpellQueueAdapter extends ArrayAdapter<Events.SpellEventData> {
         mLayoutInflater = LayoutInflater.from(context);
     }
 
+    @Override
+    public void add(Events.SpellEventData spell) {
+        spell.retain();
+        super.add(spell);
+    }
+
+    @Override
+    public void addAll(Collection<? extends Events.SpellEventData> spells) {
+        for (Events.SpellEventData spell : spells) {
+            spell.retain();
+        }
+        super.addAll(spells);
+    }
+
+    @Override
+    public void addAll(Events.SpellEventData... spells) {
+        for (Events.SpellEventData spell : spells) {
+            spell.retain();
+        }
+        super.addAll(spells);
+    }
+
+    @Override
+    public void insert(Events.SpellEventData spell, int index) {
+        spell.retain();
+        super.insert(spell, index);
+    }
+
+    @Override
+    public void remove(Events.SpellEventData spell) {
+        if (getPosition(spell) >= 0) {
+            super.remove(spell);
+            spell.release();
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < getCount(); ++i) {
+            getItem(i).release();
+        }
+        super.clear();
+    }
+
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
         View view = convertView;
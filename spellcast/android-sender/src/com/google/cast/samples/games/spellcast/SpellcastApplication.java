@@ -13,7 +13,16 @@
 // limitations under the License.
 package com.google.cast.samples.games.spellcast;
 
+import com.google.cast.samples.games.spellcast.spells.PointCloudRuneScorer;
+import com.google.cast.samples.games.spellcast.spells.RuneScorer;
+import com.google.cast.samples.games.spellcast.spells.Spell;
+import com.google.cast.samples.games.spellcast.spells.SpellAssetLoader;
+
+import android.app.ActivityManager;
 import android.app.Application;
+import android.content.Context;
+import android.os.HandlerThread;
+import android.os.Looper;
 
 /**
  * The application class.
@@ -21,25 +30,84 @@ import android.app.Application;
 public class SpellcastApplication extends Application
         implements CastConnectionManager.CastAppIdProvider {
 
+    // The share of the app's memory budget that unused bitmaps may be kept around in.
+    private static final int BITMAP_POOL_MEMORY_FRACTION = 16;
+
+    private static final String MODEL_THREAD_NAME = "SpellcastModel";
+    private static final long EVENT_METRICS_DUMP_INTERVAL_MILLIS = 10000;
+
     private static SpellcastApplication sInstance;
 
+    private LooperExecutor mMainExecutor;
+    private LooperExecutor mModelExecutor;
     private CastConnectionManager mCastConnectionManager;
     private EventManager mEventManager;
     private SpellcastGameModel mGameModel;
+    private SpellAnalyzer mSpellAnalyzer;
+    private SpellAssetLoader mSpellAssetLoader;
+    private BitmapPool mBitmapPool;
 
     @Override
     public void onCreate() {
         super.onCreate();
         sInstance = this;
+        mMainExecutor = new LooperExecutor(Looper.getMainLooper());
+        HandlerThread modelThread = new HandlerThread(MODEL_THREAD_NAME);
+        modelThread.start();
+        mModelExecutor = new LooperExecutor(modelThread.getLooper());
         mCastConnectionManager = new CastConnectionManager(this, this);
         mEventManager = new EventManager();
+        if (EventMetrics.ENABLED) {
+            mEventManager.getMetrics().startPeriodicDump(EVENT_METRICS_DUMP_INTERVAL_MILLIS);
+        }
         mGameModel = new SpellcastGameModel(mCastConnectionManager, mEventManager);
+        mSpellAnalyzer = new SpellAnalyzer();
+        if (getResources().getBoolean(R.bool.spellcast_point_cloud_scoring_enabled)) {
+            // The scorer caches the cloud of each rune, so all spells share one.
+            RuneScorer runeScorer = new PointCloudRuneScorer();
+            for (Spell spell : mGameModel.getControlledCharacter().getSpells()) {
+                spell.setRuneScorer(runeScorer);
+            }
+        }
+        mSpellAssetLoader = new SpellAssetLoader(mGameModel.getControlledCharacter().getSpells());
+        mSpellAssetLoader.start();
+
+        ActivityManager activityManager =
+                (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassBytes = activityManager.getMemoryClass() * 1024 * 1024;
+        mBitmapPool = new BitmapPool(memoryClassBytes / BITMAP_POOL_MEMORY_FRACTION);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        mBitmapPool.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        mBitmapPool.clear();
     }
 
     public static SpellcastApplication getInstance() {
         return sInstance;
     }
 
+    /**
+     * @return Executor for the UI thread. Register UI event listeners with it.
+     */
+    public LooperExecutor getMainExecutor() {
+        return mMainExecutor;
+    }
+
+    /**
+     * @return Executor for the thread that game model bookkeeping runs on.
+     */
+    public LooperExecutor getModelExecutor() {
+        return mModelExecutor;
+    }
+
     public CastConnectionManager getCastConnectionManager() {
         return mCastConnectionManager;
     }
@@ -52,6 +120,18 @@ public class SpellcastApplication extends Application
         return mGameModel;
     }
 
+    public SpellAnalyzer getSpellAnalyzer() {
+        return mSpellAnalyzer;
+    }
+
+    public SpellAssetLoader getSpellAssetLoader() {
+        return mSpellAssetLoader;
+    }
+
+    public BitmapPool getBitmapPool() {
+        return mBitmapPool;
+    }
+
     @Override
     public String getCastAppId() {
         return getResources().getString(R.string.app_id);
@@ -17,7 +17,6 @@ import com.google.android.gms.cast.games.GameManagerClient;
 import com.google.android.gms.cast.games.GameManagerState;
 import com.google.cast.samples.games.spellcast.messages.PlayerRoundInfoMessage;
 import com.google.cast.samples.games.spellcast.messages.SpellCastGameData;
-import com.google.cast.samples.games.spellcast.spells.Spell;
 
 import android.preference.PreferenceManager;
 import android.util.Log;
@@ -36,12 +35,15 @@ public class SpellcastGameModel implements Observer, GameManagerClient.Listener
     private static final String TAG = "SpellcastGameModel";
 
     private PlayableCharacter mControlledCharacter;
-    private SpellCastGameData mGameData;
+    // An interned snapshot of the receiver game data, null until the player registers.
+    private volatile SpellCastGameData mGameData;
 
     private final CastConnectionManager mCastConnectionManager;
     private final EventManager mEventManager;
 
     private Events.StartTurnData mTurnData;
+    // Reused for the message that starts every turn. Only used on the UI thread.
+    private final PlayerRoundInfoMessage mPlayerRoundInfoMessage = new PlayerRoundInfoMessage();
 
     /**
      * Enum representing the different states of the spell cast receiver.
@@ -67,8 +69,8 @@ public class SpellcastGameModel implements Observer, GameManagerClient.Listener
     }
 
     /**
-     * Starts the initialization process, registering a player with the receiver and loading spells.
-     * This is an async operation.
+     * Starts the initialization process, registering a player with the receiver. This is an async
+     * operation. Spells are loaded separately by the SpellAssetLoader when the app starts.
      */
     private void initialize() {
         getControlledCharacter().sendPlayerAvailableMessage(true);
@@ -82,18 +84,31 @@ public class SpellcastGameModel implements Observer, GameManagerClient.Listener
         return mControlledCharacter;
     }
 
+    /**
+     * @return The latest snapshot of the receiver game data, or null if not initialized.
+     */
+    public SpellCastGameData getGameData() {
+        return mGameData;
+    }
+
     public boolean isGameJoinable() {
-        return isInitialized() && mGameData.getGameState() == ReceiverGameState.WAITING_FOR_PLAYERS;
+        SpellCastGameData gameData = mGameData;
+        return gameData != null && gameData.isJoinable();
     }
 
     public boolean isInCombat() {
-        ReceiverGameState state = mGameData.getGameState();
-        return isInitialized() && (state == ReceiverGameState.PLAYER_ACTION
-            || state == ReceiverGameState.PLAYER_RESOLUTION
-            || state == ReceiverGameState.ENEMY_RESOLUTION);
+        SpellCastGameData gameData = mGameData;
+        return gameData != null && gameData.isInCombat();
     }
 
+    /**
+     * Keeps the data of the current turn. The model holds a reference to it until the next turn.
+     */
     public void setTurnData(Events.StartTurnData turnData) {
+        turnData.retain();
+        if (mTurnData != null) {
+            mTurnData.release();
+        }
         mTurnData = turnData;
     }
 
@@ -102,22 +117,23 @@ public class SpellcastGameModel implements Observer, GameManagerClient.Listener
         // The player for this sender just registered.
         if (oldState.getConnectedControllablePlayers().size() == 0
                 && newState.getConnectedControllablePlayers().size() > 0) {
-            mGameData = new SpellCastGameData(newState.getGameData());
+            mGameData = SpellCastGameData.fromJSON(newState.getGameData());
             PlayableCharacter character = getControlledCharacter();
             SpellcastApplication app = SpellcastApplication.getInstance();
             character.loadFromSettings(PreferenceManager.getDefaultSharedPreferences(app));
-            for (Spell spell : character.getSpells()) {
-                spell.loadSpell();
-            }
-            mEventManager.triggerEvent(Events.EventType.GAME_MODEL_UPDATED);
+            mEventManager.queueEvent(Events.EventType.GAME_MODEL_UPDATED);
         }
 
         // Receiver state has changed.
         if (newState.hasGameDataChanged(oldState)) {
-            Log.d(TAG, "Game data state update " + newState.getGameData().toString());
-            mGameData = new SpellCastGameData(newState.getGameData());
-            mEventManager.triggerEvent(Events.EventType.GAME_MODEL_UPDATED);
-            switch (mGameData.getGameState()) {
+            // The game data can be large, so only stringify it when verbose logging is on.
+            if (Log.isLoggable(TAG, Log.VERBOSE)) {
+                Log.v(TAG, "Game data state update " + newState.getGameData());
+            }
+            SpellCastGameData gameData = SpellCastGameData.fromJSON(newState.getGameData());
+            mGameData = gameData;
+            mEventManager.queueEvent(Events.EventType.GAME_MODEL_UPDATED);
+            switch (gameData.getGameState()) {
                 case PLAYER_ACTION:
                     mEventManager.triggerEvent(Events.EventType.RECEIVER_BATTLE_START);
                     break;
@@ -153,10 +169,12 @@ public class SpellcastGameModel implements Observer, GameManagerClient.Listener
     @Override
     public void onGameMessageReceived(String playerId, JSONObject message) {
         EventManager eventManager = SpellcastApplication.getInstance().getEventManager();
-        PlayerRoundInfoMessage playerRoundInfoMessage = new PlayerRoundInfoMessage(message);
-        Events.StartTurnData startTurnData = new Events.StartTurnData(
-                playerRoundInfoMessage.getCastSpellsDurationMillis(),
-                playerRoundInfoMessage.getPlayerBonus());
+        mPlayerRoundInfoMessage.parse(message);
+        mControlledCharacter.setPackedSpellsEnabled(
+                mPlayerRoundInfoMessage.isPackedSpellsAccepted());
+        Events.StartTurnData startTurnData = Events.StartTurnData.acquire(
+                mPlayerRoundInfoMessage.getCastSpellsDurationMillis(),
+                mPlayerRoundInfoMessage.getPlayerBonus());
         eventManager.triggerEvent(Events.EventType.START_PLAYER_TURN, startTurnData);
     }
 
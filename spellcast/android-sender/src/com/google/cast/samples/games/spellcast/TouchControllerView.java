@@ -16,7 +16,11 @@ package com.google.cast.samples.games.spellcast;
 import com.google.cast.samples.games.spellcast.Events.EventType;
 import com.google.cast.samples.games.spellcast.messages.SpellCastMessage.DifficultySetting;
 import com.google.cast.samples.games.spellcast.messages.SpellCastMessage.SpellAccuracy;
+import com.google.cast.samples.games.spellcast.runes.DrawnRuneMask;
+import com.google.cast.samples.games.spellcast.runes.DrawnStrokes;
+import com.google.cast.samples.games.spellcast.runes.RuneDrawing;
 import com.google.cast.samples.games.spellcast.spells.Spell;
+import com.google.cast.samples.games.spellcast.spells.TemplateRuneScorer;
 
 import android.content.Context;
 import android.graphics.Bitmap;
@@ -31,11 +35,27 @@ import android.util.TypedValue;
 import android.view.MotionEvent;
 import android.view.View;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Custom class for a view that will register touch/gestures from the user.
  */
 public class TouchControllerView extends View {
 
+    /**
+     * Listener for the live accuracy of the rune being drawn.
+     */
+    public interface OnAccuracyChangedListener {
+        /**
+         * Called on the UI thread whenever the drawing covers new cells of the rune, and with 0
+         * when the drawing is cleared.
+         *
+         * @param percentageScore The score of the drawing so far, see {@link #getLiveAccuracy()}.
+         */
+        void onAccuracyChanged(float percentageScore);
+    }
+
     // Due to Api 17 not knowing how to deal with both adding a margin and custom measuring of the
     // view, this number will scale down the touch controller view's measured height before
     // making the entire thing square and a multiple of resolution.
@@ -51,8 +71,13 @@ public class TouchControllerView extends View {
     private static float[] sDrawAccuracyThresholdsNormal = { 80, 70, 40 };
     private static float[] sDrawAccuracyThresholdsEasy = { 50, 40, 20 };
 
-    private Path mCurrentPath;
-    private Paint mDrawPaint;
+    // The drawing only needs coverage, so it is kept in an alpha only bitmap, a quarter of the size
+    // of an ARGB_8888 one, and tinted with the paint color when shown.
+    private static final Bitmap.Config DRAWING_BITMAP_CONFIG = Bitmap.Config.ALPHA_8;
+
+    private final Path mCurrentPath = new Path();
+    private final Paint mDrawPaint = new Paint();
+    private final Paint mBitmapPaint = new Paint();
     private int mPaintColor = Color.WHITE;
 
     private float mCurrentBrushSize = 30.0f;
@@ -62,20 +87,65 @@ public class TouchControllerView extends View {
     private Spell mSpell;
 
     private Bitmap mBitmap;
-    private Canvas mBitmapCanvas;
+    private final Canvas mBitmapCanvas = new Canvas();
     private DifficultySetting mDifficulty = DifficultySetting.EASY;
 
+    // Touch samples are always rasterized straight into the scoring grid as they arrive, which
+    // keeps the live accuracy up to date. When true, the final score also comes from that grid and
+    // the drawing bitmap is only used for display. Otherwise the bitmap is read back to score.
+    private boolean mStreamingRasterization = true;
+    private final DrawnRuneMask mDrawnMask = new DrawnRuneMask();
+    // The raw touch points, for rune scorers that work on strokes instead of cells.
+    private final DrawnStrokes mDrawnStrokes = new DrawnStrokes();
+    private float mLastX;
+    private float mLastY;
+    private float mLiveAccuracy = 0;
+    private OnAccuracyChangedListener mOnAccuracyChangedListener;
+
+    // When set and no spell is picked, the player can draw any of these spells, and the drawing is
+    // classified once the player stops drawing.
+    private List<Spell> mFreeCastSpells;
+    private DifficultySetting mFreeCastDifficulty;
+    private int mFreeCastMaxStrokes;
+    private final long mFreeCastStrokeTimeoutMillis;
+    private final Runnable mFreeCastTimeout = new Runnable() {
+        @Override
+        public void run() {
+            if (isFreeCasting() && !mDrawnStrokes.isEmpty()) {
+                analyzeSpell();
+                clearCanvas();
+            }
+        }
+    };
+
     public TouchControllerView(Context context, AttributeSet attributes) {
         super(context, attributes);
         float pixelAmount = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
                 getResources().getInteger(R.integer.spellcast_touch_controller_brush_size),
                 getResources().getDisplayMetrics());
         mCurrentBrushSize = pixelAmount;
+
+        mDrawPaint.setColor(mPaintColor);
+        mDrawPaint.setAntiAlias(true);
+        mDrawPaint.setStrokeWidth(mCurrentBrushSize);
+        mDrawPaint.setStyle(Paint.Style.STROKE);
+        mDrawPaint.setStrokeJoin(Paint.Join.ROUND);
+        mDrawPaint.setStrokeCap(Paint.Cap.ROUND);
+        mBitmapPaint.setColor(mPaintColor);
+
+        mFreeCastStrokeTimeoutMillis =
+                getResources().getInteger(R.integer.spellcast_free_cast_stroke_timeout_millis);
     }
 
+    /**
+     * Sets the spell the player has to draw. When spell is null and free cast is on, the player
+     * can draw any of the free cast spells instead.
+     */
     public void setSpell(Spell spell, DifficultySetting difficulty) {
+        removeCallbacks(mFreeCastTimeout);
         mSpell = spell;
-        mDifficulty = difficulty;
+        mDifficulty = spell != null ? difficulty : mFreeCastDifficulty;
+        mDrawnMask.setScoringTemplate(spell != null ? spell.getScoringTemplate() : null);
         clearCanvas();
         BitmapDrawable drawable = null;
         if (mSpell != null) {
@@ -86,25 +156,84 @@ public class TouchControllerView extends View {
     }
 
     /**
-     * Creates a drawing helper that will be used to draw to a view with dimensions width x height.
+     * @param streamingRasterization True to score from touch samples rasterized as they arrive,
+     *            false to score by reading back the rendered drawing.
+     */
+    public void setStreamingRasterization(boolean streamingRasterization) {
+        mStreamingRasterization = streamingRasterization;
+    }
+
+    /**
+     * Turns free cast on or off. With free cast on, the player does not have to pick a spell
+     * before drawing. Once the player has drawn as many strokes as the longest spell takes, or
+     * pauses between strokes, the drawing is scored against every spell and the best match above
+     * the accuracy threshold is cast.
+     *
+     * @param spells The spells the player can draw, or null to turn free cast off.
+     * @param difficulty The difficulty to score drawings at.
+     */
+    public void setFreeCastSpells(List<Spell> spells, DifficultySetting difficulty) {
+        removeCallbacks(mFreeCastTimeout);
+        mFreeCastSpells = spells != null ? new ArrayList<>(spells) : null;
+        mFreeCastDifficulty = difficulty;
+        mFreeCastMaxStrokes = 0;
+        if (spells != null) {
+            for (Spell spell : spells) {
+                mFreeCastMaxStrokes = Math.max(mFreeCastMaxStrokes, spell.getNumDrawStrokes());
+            }
+        }
+        if (mSpell == null) {
+            mDifficulty = difficulty;
+            clearCanvas();
+        }
+    }
+
+    private boolean isFreeCasting() {
+        return mSpell == null && mFreeCastSpells != null;
+    }
+
+    public void setOnAccuracyChangedListener(OnAccuracyChangedListener listener) {
+        mOnAccuracyChangedListener = listener;
+    }
+
+    /**
+     * @return The score of the drawing so far against the scoring template of the spell, on the
+     *         same scale as the final score of the default rune scorer. This is updated on every
+     *         touch sample, only scoring the cells the new sample covers, and is 0 when there is no
+     *         spell to draw.
+     */
+    public float getLiveAccuracy() {
+        return mLiveAccuracy;
+    }
+
+    /**
+     * Sets up the drawing bitmap for a view with dimensions width x height. The previous bitmap,
+     * if any, goes back to the bitmap pool, and the new one is reused from it when possible.
      *
      * @param width - The width of the view this drawing helper will draw to.
      * @param height - The height of the view this drawing helper will draw to.
      */
     private void init(int width, int height) {
-        mCurrentPath = new Path();
-        mDrawPaint = new Paint();
-        mDrawPaint.setColor(mPaintColor);
-
-        mDrawPaint.setAntiAlias(true);
-        mDrawPaint.setStrokeWidth(mCurrentBrushSize);
-        mDrawPaint.setStyle(Paint.Style.STROKE);
-        mDrawPaint.setStrokeJoin(Paint.Join.ROUND);
-        mDrawPaint.setStrokeCap(Paint.Cap.ROUND);
+        releaseBitmap();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
 
+        mCurrentPath.reset();
+        mBitmap = SpellcastApplication.getInstance().getBitmapPool().acquire(width, height,
+                DRAWING_BITMAP_CONFIG);
+        mBitmapCanvas.setBitmap(mBitmap);
+        mDrawnMask.setSize(width, height, mCurrentBrushSize);
         mCanvasInitialized = true;
-        mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        mBitmapCanvas = new Canvas(mBitmap);
+    }
+
+    private void releaseBitmap() {
+        mCanvasInitialized = false;
+        if (mBitmap != null) {
+            mBitmapCanvas.setBitmap(null);
+            SpellcastApplication.getInstance().getBitmapPool().release(mBitmap);
+            mBitmap = null;
+        }
     }
 
     @Override
@@ -114,12 +243,30 @@ public class TouchControllerView extends View {
         init(width, height);
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (!mCanvasInitialized) {
+            init(getWidth(), getHeight());
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removeCallbacks(mFreeCastTimeout);
+        releaseBitmap();
+    }
+
     public void clearCanvas() {
         if (mCanvasInitialized) {
             mNumStrokes = 0;
             mCurrentPath.reset();
             mBitmapCanvas.drawColor(Color.TRANSPARENT, Mode.CLEAR);
+            mDrawnMask.clear();
+            mDrawnStrokes.clear();
         }
+        updateLiveAccuracy();
     }
 
     @Override
@@ -128,7 +275,7 @@ public class TouchControllerView extends View {
             return false;
         }
 
-        if (mSpell == null) {
+        if (mSpell == null && mFreeCastSpells == null) {
             return false;
         }
 
@@ -137,19 +284,36 @@ public class TouchControllerView extends View {
 
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
+                removeCallbacks(mFreeCastTimeout);
                 mCurrentPath.moveTo(x, y);
-
+                mDrawnMask.addPoint(x, y);
+                updateLiveAccuracy();
+                mDrawnStrokes.beginStroke(x, y);
+                mLastX = x;
+                mLastY = y;
                 break;
             case MotionEvent.ACTION_MOVE:
                 mCurrentPath.lineTo(x, y);
-
+                mDrawnMask.addSegment(mLastX, mLastY, x, y);
+                updateLiveAccuracy();
+                mDrawnStrokes.addPoint(x, y);
+                mLastX = x;
+                mLastY = y;
                 break;
             case MotionEvent.ACTION_UP:
                 mNumStrokes++;
+                mDrawnStrokes.endStroke();
                 mBitmapCanvas.drawPath(mCurrentPath, mDrawPaint);
                 mCurrentPath.reset();
 
-                if (mNumStrokes >= mSpell.getNumDrawStrokes()) {
+                if (isFreeCasting()) {
+                    if (mNumStrokes >= mFreeCastMaxStrokes) {
+                        analyzeSpell();
+                        clearCanvas();
+                    } else {
+                        postDelayed(mFreeCastTimeout, mFreeCastStrokeTimeoutMillis);
+                    }
+                } else if (mNumStrokes >= mSpell.getNumDrawStrokes()) {
                     analyzeSpell();
                     setSpell(null, null);
                 }
@@ -162,17 +326,28 @@ public class TouchControllerView extends View {
     }
 
     public void analyzeSpellOnEndTurn() {
-        if (mSpell != null) {
+        removeCallbacks(mFreeCastTimeout);
+        if (mSpell != null || (isFreeCasting() && !mDrawnStrokes.isEmpty())) {
             mBitmapCanvas.drawPath(mCurrentPath, mDrawPaint);
             analyzeSpell();
         }
     }
 
-    private float[] getAccuracyThresholdTuning() {
-        if (mDifficulty == null) {
+    private void updateLiveAccuracy() {
+        float accuracy = mDrawnMask.getScorePercentage();
+        if (accuracy != mLiveAccuracy) {
+            mLiveAccuracy = accuracy;
+            if (mOnAccuracyChangedListener != null) {
+                mOnAccuracyChangedListener.onAccuracyChanged(accuracy);
+            }
+        }
+    }
+
+    private static float[] getAccuracyThresholdTuning(DifficultySetting difficulty) {
+        if (difficulty == null) {
             return sDrawAccuracyThresholdsEasy;
         }
-        switch(mDifficulty) {
+        switch(difficulty) {
             case HARD:
                 return sDrawAccuracyThresholdsHard;
             case NORMAL:
@@ -183,12 +358,60 @@ public class TouchControllerView extends View {
         }
     }
 
+    /**
+     * Scores the current drawing. The result is delivered as a SPELL_CAST_SUCCESSFUL or
+     * SPELL_CAST_FAIL event on the UI thread, in cast order. When the spell is scored against its
+     * template, the live accuracy already is the final score. Otherwise the drawing is snapshotted
+     * and scored in the background.
+     */
     private void analyzeSpell() {
-        // Image Compare.
-        float percentageScore = mSpell.getRuneScore(mBitmap);
+        final DifficultySetting difficulty = mDifficulty;
+        SpellAnalyzer analyzer = SpellcastApplication.getInstance().getSpellAnalyzer();
+        SpellAnalyzer.OnSpellAnalyzedListener listener =
+                new SpellAnalyzer.OnSpellAnalyzedListener() {
+                    @Override
+                    public void onSpellAnalyzed(Spell spell, float percentageScore) {
+                        onSpellScored(spell, percentageScore, difficulty);
+                    }
+                };
+
+        if (isFreeCasting()) {
+            analyzer.classify(mFreeCastSpells, getDrawing(), listener);
+            return;
+        }
+
+        if (mStreamingRasterization && mSpell.getRuneScorer() instanceof TemplateRuneScorer
+                && mSpell.getScoringTemplate() != null) {
+            analyzer.deliver(mSpell, mDrawnMask.getScorePercentage(), listener);
+            return;
+        }
+
+        analyzer.analyze(mSpell, getDrawing(), listener);
+    }
+
+    /**
+     * @return A snapshot of the current drawing.
+     */
+    private RuneDrawing getDrawing() {
+        long[] drawnRows;
+        if (mStreamingRasterization) {
+            drawnRows = mDrawnMask.getRows();
+        } else {
+            drawnRows = ImageUtil.getPixelMask(mBitmap);
+        }
+        return new RuneDrawing(drawnRows, mDrawnStrokes.getStrokes());
+    }
 
+    private static void onSpellScored(Spell spell, float percentageScore,
+            DifficultySetting difficulty) {
+        if (spell == null) {
+            // A free cast drawing that matched none of the spells.
+            SpellcastApplication.getInstance().getEventManager().triggerEvent(
+                    EventType.SPELL_CAST_FAIL, Events.SpellEventData.acquire(null, null));
+            return;
+        }
         SpellAccuracy accuracy = null;
-        float[] accuracyThresholds = getAccuracyThresholdTuning();
+        float[] accuracyThresholds = getAccuracyThresholdTuning(difficulty);
         if (percentageScore > accuracyThresholds[0]) {
             accuracy = SpellAccuracy.PERFECT;
         } else if (percentageScore > accuracyThresholds[1]) {
@@ -196,7 +419,7 @@ public class TouchControllerView extends View {
         } else if (percentageScore > accuracyThresholds[2]) {
             accuracy = SpellAccuracy.GOOD;
         }
-        Events.SpellEventData eventData = new Events.SpellEventData(mSpell, accuracy);
+        Events.SpellEventData eventData = Events.SpellEventData.acquire(spell, accuracy);
 
         EventManager eventManager = SpellcastApplication.getInstance().getEventManager();
         eventManager.triggerEvent(
@@ -226,7 +449,8 @@ public class TouchControllerView extends View {
         if (!mCanvasInitialized) {
             return;
         }
-        canvas.drawBitmap(mBitmap, 0, 0, null);
+        // Alpha only bitmaps are drawn in the color of the paint.
+        canvas.drawBitmap(mBitmap, 0, 0, mBitmapPaint);
         canvas.drawPath(mCurrentPath, mDrawPaint);
     }
 
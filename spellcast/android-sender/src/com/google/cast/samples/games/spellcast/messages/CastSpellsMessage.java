@@ -22,24 +22,69 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Class that converts list of spells into a JSON string message sent to the receiver.
+ * Class that converts list of spells into a JSON string message sent to the receiver. Receivers
+ * that support it get the spells packed with {@link PackedSpellCodec}, older ones get a JSON
+ * object per spell.
+ *
+ * <p>Each spell is serialized when it is added, so sending the message at the end of the turn
+ * only puts the ready-made pieces together. This class is not thread-safe.
  */
 public class CastSpellsMessage extends SpellCastMessage {
-    private static final String KEY_SPELLS = "spells";
+    private static final String KEY_SPELLS = MessageSchema.SpellMessage.KEY_SPELLS;
+    private static final String KEY_PACKED_SPELLS = MessageSchema.SpellMessage.KEY_PACKED_SPELLS;
     private static final String TAG = "CastSpellsMessage";
 
+    private static final int INITIAL_CAPACITY = 16;
+
     private ArrayList<SpellEventData> mSpells = new ArrayList<>();
+    private boolean mIsPackedEncodingEnabled = false;
 
+    // The spells serialized so far. The packed spells are always kept up to date since they are
+    // cheap, the JSON spells only while the packed encoding is disabled.
+    private byte[] mPackedSpells = new byte[INITIAL_CAPACITY];
+    private JSONArray mSerializedSpells = new JSONArray();
 
+    /**
+     * Adds a spell to the message. The message keeps a reference to the spell until it is cleared.
+     */
     public void addSpell(SpellEventData spellEventData) {
+        spellEventData.retain();
+        int index = mSpells.size();
         mSpells.add(spellEventData);
+        if (index == mPackedSpells.length) {
+            mPackedSpells = Arrays.copyOf(mPackedSpells, index * 2);
+        }
+        mPackedSpells[index] = PackedSpellCodec.packSpell(spellEventData);
+        if (!mIsPackedEncodingEnabled && mSerializedSpells.length() == index) {
+            mSerializedSpells.put(spellEventData.toJSON());
+        }
+        invalidateCachedJSON();
     }
 
+    /**
+     * Removes every spell from the message and releases them.
+     */
     public void clear() {
+        for (int i = 0; i < mSpells.size(); ++i) {
+            mSpells.get(i).release();
+        }
         mSpells.clear();
+        mSerializedSpells = new JSONArray();
+        invalidateCachedJSON();
+    }
+
+    /**
+     * @param enabled True to send the spells packed, only if the receiver said it supports it.
+     */
+    public void setPackedEncodingEnabled(boolean enabled) {
+        if (mIsPackedEncodingEnabled != enabled) {
+            mIsPackedEncodingEnabled = enabled;
+            invalidateCachedJSON();
+        }
     }
 
     public List<SpellEventData> getSpellList() {
@@ -49,16 +94,50 @@ public class CastSpellsMessage extends SpellCastMessage {
     @Override
     public JSONObject toJSON() {
         JSONObject serialized = new JSONObject();
-        JSONArray array = new JSONArray();
-        for (SpellEventData spell : mSpells) {
-            array.put(spell.toJSON());
+        if (mIsPackedEncodingEnabled) {
+            if (mSpells.isEmpty()) {
+                // The receiver treats a missing field as a turn without spells.
+                return serialized;
+            }
+            try {
+                serialized.put(KEY_PACKED_SPELLS,
+                        PackedSpellCodec.encode(mPackedSpells, mSpells.size()));
+            } catch (JSONException e) {
+                Log.w(TAG, "JSONException converting packed spell list to JSON.", e);
+            }
+            return serialized;
+        }
+        if (mSerializedSpells.length() != mSpells.size()) {
+            // Some spells were added while the packed encoding was enabled.
+            mSerializedSpells = new JSONArray();
+            for (SpellEventData spell : mSpells) {
+                mSerializedSpells.put(spell.toJSON());
+            }
         }
         try {
-            serialized.put(KEY_SPELLS, array);
+            serialized.put(KEY_SPELLS, mSerializedSpells);
         } catch (JSONException e) {
             Log.w(TAG, "JSONException converting spell list to JSON.", e);
         }
 
         return serialized;
     }
+
+    @Override
+    public void writeTo(JsonSink sink) {
+        sink.beginObject();
+        if (mIsPackedEncodingEnabled) {
+            if (!mSpells.isEmpty()) {
+                sink.name(KEY_PACKED_SPELLS)
+                        .value(PackedSpellCodec.encode(mPackedSpells, mSpells.size()));
+            }
+        } else {
+            sink.name(KEY_SPELLS).beginArray();
+            for (int i = 0; i < mSpells.size(); ++i) {
+                mSpells.get(i).writeTo(sink);
+            }
+            sink.endArray();
+        }
+        sink.endObject();
+    }
 }
@@ -0,0 +1,291 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.messages;
+
+import com.google.cast.samples.games.spellcast.SpellcastGameModel;
+
+/**
+ * Wire ids and keys of the messages exchanged with the receiver. Generated by
+ * MessageSchemaGenerator from rune-tools/schema/spellcast_messages.json, do not edit. Change
+ * the schema and run "gradle generateMessageSchema" in rune-tools instead.
+ */
+public final class MessageSchema {
+
+    private MessageSchema() {
+    }
+
+    // Indexed by the wire id.
+    private static final SpellCastMessage.DifficultySetting[] DIFFICULTY_SETTING_BY_ID = {
+        SpellCastMessage.DifficultySetting.EASY,
+        SpellCastMessage.DifficultySetting.EASY,
+        SpellCastMessage.DifficultySetting.NORMAL,
+        SpellCastMessage.DifficultySetting.HARD,
+    };
+
+    // Indexed by the ordinal.
+    private static final int[] DIFFICULTY_SETTING_IDS =
+            new int[SpellCastMessage.DifficultySetting.values().length];
+
+    static {
+        DIFFICULTY_SETTING_IDS[SpellCastMessage.DifficultySetting.EASY.ordinal()] = 1;
+        DIFFICULTY_SETTING_IDS[SpellCastMessage.DifficultySetting.NORMAL.ordinal()] = 2;
+        DIFFICULTY_SETTING_IDS[SpellCastMessage.DifficultySetting.HARD.ordinal()] = 3;
+    }
+
+    /**
+     * @return The value with the wire id, or EASY if the id is unknown.
+     */
+    public static SpellCastMessage.DifficultySetting decodeDifficultySetting(int id) {
+        return id >= 0 && id < DIFFICULTY_SETTING_BY_ID.length ? DIFFICULTY_SETTING_BY_ID[id]
+                : SpellCastMessage.DifficultySetting.EASY;
+    }
+
+    public static int encode(SpellCastMessage.DifficultySetting value) {
+        return DIFFICULTY_SETTING_IDS[value.ordinal()];
+    }
+
+    // Indexed by the wire id.
+    private static final SpellCastMessage.PlayerBonus[] PLAYER_BONUS_BY_ID = {
+        SpellCastMessage.PlayerBonus.NONE,
+        SpellCastMessage.PlayerBonus.NONE,
+        SpellCastMessage.PlayerBonus.ATTACK,
+        SpellCastMessage.PlayerBonus.HEAL,
+        SpellCastMessage.PlayerBonus.SHIELD,
+    };
+
+    // Indexed by the ordinal.
+    private static final int[] PLAYER_BONUS_IDS =
+            new int[SpellCastMessage.PlayerBonus.values().length];
+
+    static {
+        PLAYER_BONUS_IDS[SpellCastMessage.PlayerBonus.NONE.ordinal()] = 1;
+        PLAYER_BONUS_IDS[SpellCastMessage.PlayerBonus.ATTACK.ordinal()] = 2;
+        PLAYER_BONUS_IDS[SpellCastMessage.PlayerBonus.HEAL.ordinal()] = 3;
+        PLAYER_BONUS_IDS[SpellCastMessage.PlayerBonus.SHIELD.ordinal()] = 4;
+    }
+
+    /**
+     * @return The value with the wire id, or NONE if the id is unknown.
+     */
+    public static SpellCastMessage.PlayerBonus decodePlayerBonus(int id) {
+        return id >= 0 && id < PLAYER_BONUS_BY_ID.length ? PLAYER_BONUS_BY_ID[id]
+                : SpellCastMessage.PlayerBonus.NONE;
+    }
+
+    public static int encode(SpellCastMessage.PlayerBonus value) {
+        return PLAYER_BONUS_IDS[value.ordinal()];
+    }
+
+    // Indexed by the wire id.
+    private static final SpellCastMessage.SpellType[] SPELL_TYPE_BY_ID = {
+        SpellCastMessage.SpellType.BASIC_ATTACK,
+        SpellCastMessage.SpellType.BASIC_ATTACK,
+        SpellCastMessage.SpellType.HEAL,
+        SpellCastMessage.SpellType.SHIELD,
+    };
+
+    // Indexed by the ordinal.
+    private static final int[] SPELL_TYPE_IDS =
+            new int[SpellCastMessage.SpellType.values().length];
+
+    static {
+        SPELL_TYPE_IDS[SpellCastMessage.SpellType.BASIC_ATTACK.ordinal()] = 1;
+        SPELL_TYPE_IDS[SpellCastMessage.SpellType.HEAL.ordinal()] = 2;
+        SPELL_TYPE_IDS[SpellCastMessage.SpellType.SHIELD.ordinal()] = 3;
+    }
+
+    /**
+     * @return The value with the wire id, or BASIC_ATTACK if the id is unknown.
+     */
+    public static SpellCastMessage.SpellType decodeSpellType(int id) {
+        return id >= 0 && id < SPELL_TYPE_BY_ID.length ? SPELL_TYPE_BY_ID[id]
+                : SpellCastMessage.SpellType.BASIC_ATTACK;
+    }
+
+    public static int encode(SpellCastMessage.SpellType value) {
+        return SPELL_TYPE_IDS[value.ordinal()];
+    }
+
+    // Indexed by the wire id.
+    private static final SpellCastMessage.SpellElement[] SPELL_ELEMENT_BY_ID = {
+        SpellCastMessage.SpellElement.NONE,
+        SpellCastMessage.SpellElement.NONE,
+        SpellCastMessage.SpellElement.AIR,
+        SpellCastMessage.SpellElement.WATER,
+        SpellCastMessage.SpellElement.FIRE,
+        SpellCastMessage.SpellElement.EARTH,
+    };
+
+    // Indexed by the ordinal.
+    private static final int[] SPELL_ELEMENT_IDS =
+            new int[SpellCastMessage.SpellElement.values().length];
+
+    static {
+        SPELL_ELEMENT_IDS[SpellCastMessage.SpellElement.NONE.ordinal()] = 1;
+        SPELL_ELEMENT_IDS[SpellCastMessage.SpellElement.AIR.ordinal()] = 2;
+        SPELL_ELEMENT_IDS[SpellCastMessage.SpellElement.WATER.ordinal()] = 3;
+        SPELL_ELEMENT_IDS[SpellCastMessage.SpellElement.FIRE.ordinal()] = 4;
+        SPELL_ELEMENT_IDS[SpellCastMessage.SpellElement.EARTH.ordinal()] = 5;
+    }
+
+    /**
+     * @return The value with the wire id, or NONE if the id is unknown.
+     */
+    public static SpellCastMessage.SpellElement decodeSpellElement(int id) {
+        return id >= 0 && id < SPELL_ELEMENT_BY_ID.length ? SPELL_ELEMENT_BY_ID[id]
+                : SpellCastMessage.SpellElement.NONE;
+    }
+
+    public static int encode(SpellCastMessage.SpellElement value) {
+        return SPELL_ELEMENT_IDS[value.ordinal()];
+    }
+
+    // Indexed by the wire id.
+    private static final SpellCastMessage.SpellAccuracy[] SPELL_ACCURACY_BY_ID = {
+        SpellCastMessage.SpellAccuracy.GOOD,
+        SpellCastMessage.SpellAccuracy.PERFECT,
+        SpellCastMessage.SpellAccuracy.GREAT,
+        SpellCastMessage.SpellAccuracy.GOOD,
+    };
+
+    // Indexed by the ordinal.
+    private static final int[] SPELL_ACCURACY_IDS =
+            new int[SpellCastMessage.SpellAccuracy.values().length];
+
+    static {
+        SPELL_ACCURACY_IDS[SpellCastMessage.SpellAccuracy.PERFECT.ordinal()] = 1;
+        SPELL_ACCURACY_IDS[SpellCastMessage.SpellAccuracy.GREAT.ordinal()] = 2;
+        SPELL_ACCURACY_IDS[SpellCastMessage.SpellAccuracy.GOOD.ordinal()] = 3;
+    }
+
+    /**
+     * @return The value with the wire id, or GOOD if the id is unknown.
+     */
+    public static SpellCastMessage.SpellAccuracy decodeSpellAccuracy(int id) {
+        return id >= 0 && id < SPELL_ACCURACY_BY_ID.length ? SPELL_ACCURACY_BY_ID[id]
+                : SpellCastMessage.SpellAccuracy.GOOD;
+    }
+
+    public static int encode(SpellCastMessage.SpellAccuracy value) {
+        return SPELL_ACCURACY_IDS[value.ordinal()];
+    }
+
+    // Indexed by the wire id.
+    private static final SpellcastGameModel.ReceiverGameState[] GAME_STATE_ID_BY_ID = {
+        SpellcastGameModel.ReceiverGameState.UNKNOWN,
+        SpellcastGameModel.ReceiverGameState.WAITING_FOR_PLAYERS,
+        SpellcastGameModel.ReceiverGameState.INSTRUCTIONS,
+        SpellcastGameModel.ReceiverGameState.PLAYER_ACTION,
+        SpellcastGameModel.ReceiverGameState.PLAYER_RESOLUTION,
+        SpellcastGameModel.ReceiverGameState.ENEMY_RESOLUTION,
+        SpellcastGameModel.ReceiverGameState.PLAYER_VICTORY,
+        SpellcastGameModel.ReceiverGameState.ENEMY_VICTORY,
+        SpellcastGameModel.ReceiverGameState.PAUSED,
+    };
+
+    // Indexed by the ordinal.
+    private static final int[] GAME_STATE_ID_IDS =
+            new int[SpellcastGameModel.ReceiverGameState.values().length];
+
+    static {
+        GAME_STATE_ID_IDS[SpellcastGameModel.ReceiverGameState.UNKNOWN.ordinal()] = 0;
+        GAME_STATE_ID_IDS[SpellcastGameModel.ReceiverGameState.WAITING_FOR_PLAYERS.ordinal()] = 1;
+        GAME_STATE_ID_IDS[SpellcastGameModel.ReceiverGameState.INSTRUCTIONS.ordinal()] = 2;
+        GAME_STATE_ID_IDS[SpellcastGameModel.ReceiverGameState.PLAYER_ACTION.ordinal()] = 3;
+        GAME_STATE_ID_IDS[SpellcastGameModel.ReceiverGameState.PLAYER_RESOLUTION.ordinal()] = 4;
+        GAME_STATE_ID_IDS[SpellcastGameModel.ReceiverGameState.ENEMY_RESOLUTION.ordinal()] = 5;
+        GAME_STATE_ID_IDS[SpellcastGameModel.ReceiverGameState.PLAYER_VICTORY.ordinal()] = 6;
+        GAME_STATE_ID_IDS[SpellcastGameModel.ReceiverGameState.ENEMY_VICTORY.ordinal()] = 7;
+        GAME_STATE_ID_IDS[SpellcastGameModel.ReceiverGameState.PAUSED.ordinal()] = 8;
+    }
+
+    /**
+     * @return The value with the wire id, or UNKNOWN if the id is unknown.
+     */
+    public static SpellcastGameModel.ReceiverGameState decodeGameStateId(int id) {
+        return id >= 0 && id < GAME_STATE_ID_BY_ID.length ? GAME_STATE_ID_BY_ID[id]
+                : SpellcastGameModel.ReceiverGameState.UNKNOWN;
+    }
+
+    public static int encode(SpellcastGameModel.ReceiverGameState value) {
+        return GAME_STATE_ID_IDS[value.ordinal()];
+    }
+
+    /**
+     * Keys of {@code cast.games.spellcast.messages.GameData}.
+     */
+    public static final class GameData {
+        public static final String KEY_GAME_STATE_ID = "gameStateId";
+
+        private GameData() {
+        }
+    }
+
+    /**
+     * Keys of {@code cast.games.spellcast.messages.PlayerReadyData}.
+     */
+    public static final class PlayerReadyData {
+        public static final String KEY_PLAYER_NAME = "playerName";
+        public static final String KEY_AVATAR_INDEX = "avatarIndex";
+        public static final String KEY_SUPPORTS_PACKED_SPELLS = "supportsPackedSpells";
+
+        private PlayerReadyData() {
+        }
+    }
+
+    /**
+     * Keys of {@code cast.games.spellcast.messages.PlayerPlayingData}.
+     */
+    public static final class PlayerPlayingData {
+        public static final String KEY_DIFFICULTY_SETTING = "difficultySetting";
+
+        private PlayerPlayingData() {
+        }
+    }
+
+    /**
+     * Keys of {@code cast.games.spellcast.messages.PlayerMessage}.
+     */
+    public static final class PlayerMessage {
+        public static final String KEY_PLAYER_BONUS = "playerBonus";
+        public static final String KEY_CAST_SPELLS_DURATION_MILLIS = "castSpellsDurationMillis";
+        public static final String KEY_PACKED_SPELLS = "packedSpells";
+
+        private PlayerMessage() {
+        }
+    }
+
+    /**
+     * Keys of {@code cast.games.spellcast.messages.Spell}.
+     */
+    public static final class Spell {
+        public static final String KEY_SPELL_TYPE = "spellType";
+        public static final String KEY_SPELL_ELEMENT = "spellElement";
+        public static final String KEY_SPELL_ACCURACY = "spellAccuracy";
+
+        private Spell() {
+        }
+    }
+
+    /**
+     * Keys of {@code cast.games.spellcast.messages.SpellMessage}.
+     */
+    public static final class SpellMessage {
+        public static final String KEY_SPELLS = "spells";
+        public static final String KEY_PACKED_SPELLS = "packedSpells";
+
+        private SpellMessage() {
+        }
+    }
+}
@@ -0,0 +1,53 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.messages;
+
+import com.google.cast.samples.games.spellcast.Events.SpellEventData;
+import com.google.cast.samples.games.spellcast.spells.Spell;
+
+import android.util.Base64;
+
+/**
+ * Compact encoding of the spells cast in a turn, used instead of one JSON object per spell when
+ * the receiver supports it. Each spell is one byte holding the values from
+ * {@link SpellCastMessage#spellCastEnumToInt}: the spell type in bits 5-6, the element in bits 2-4
+ * and the accuracy in bits 0-1. The bytes are sent as a base64 string. Keep in sync with
+ * {@code cast.games.spellcast.messages.SpellMessage.unpackSpells}.
+ */
+public final class PackedSpellCodec {
+    private static final int TYPE_SHIFT = 5;
+    private static final int ELEMENT_SHIFT = 2;
+
+    private PackedSpellCodec() {
+    }
+
+    public static byte packSpell(SpellCastMessage.SpellType type,
+            SpellCastMessage.SpellElement element, SpellCastMessage.SpellAccuracy accuracy) {
+        return (byte) ((SpellCastMessage.spellCastEnumToInt(type) << TYPE_SHIFT)
+                | (SpellCastMessage.spellCastEnumToInt(element) << ELEMENT_SHIFT)
+                | SpellCastMessage.spellCastEnumToInt(accuracy));
+    }
+
+    public static byte packSpell(SpellEventData spellEventData) {
+        Spell spell = spellEventData.getSpell();
+        return packSpell(spell.getType(), spell.getElement(), spellEventData.getAccuracy());
+    }
+
+    /**
+     * @return The first count packed spells as a base64 string.
+     */
+    public static String encode(byte[] packedSpells, int count) {
+        return Base64.encodeToString(packedSpells, 0, count, Base64.NO_WRAP);
+    }
+}
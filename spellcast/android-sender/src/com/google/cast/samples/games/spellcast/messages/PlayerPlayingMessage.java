@@ -22,7 +22,8 @@ import org.json.JSONObject;
  * Message sent to receiver when the host starts the game.
  */
 public class PlayerPlayingMessage extends SpellCastMessage {
-    private static final String KEY_DIFFICULTY_SETTING = "difficultySetting";
+    private static final String KEY_DIFFICULTY_SETTING =
+            MessageSchema.PlayerPlayingData.KEY_DIFFICULTY_SETTING;
     private static final String TAG = "PlayerPlayingMessage";
 
     private DifficultySetting mDifficulty;
@@ -43,4 +44,12 @@ public class PlayerPlayingMessage extends SpellCastMessage {
 
         return serialized;
     }
+
+    @Override
+    public void writeTo(JsonSink sink) {
+        sink.beginObject()
+                .name(KEY_DIFFICULTY_SETTING)
+                .value(SpellCastMessage.spellCastEnumToInt(mDifficulty))
+                .endObject();
+    }
 }
@@ -23,8 +23,10 @@ import org.json.JSONObject;
  */
 public class PlayerReadyMessage extends SpellCastMessage {
 
-    private static final String KEY_PLAYER_NAME = "playerName";
-    private static final String KEY_AVATAR_INDEX = "avatarIndex";
+    private static final String KEY_PLAYER_NAME = MessageSchema.PlayerReadyData.KEY_PLAYER_NAME;
+    private static final String KEY_AVATAR_INDEX = MessageSchema.PlayerReadyData.KEY_AVATAR_INDEX;
+    private static final String KEY_SUPPORTS_PACKED_SPELLS =
+            MessageSchema.PlayerReadyData.KEY_SUPPORTS_PACKED_SPELLS;
     private static final String TAG = "PlayerPlayingMessage";
 
     private final String mPlayerName;
@@ -41,10 +43,24 @@ public class PlayerReadyMessage extends SpellCastMessage {
         try {
             serialized.put(KEY_PLAYER_NAME, mPlayerName);
             serialized.put(KEY_AVATAR_INDEX, mAvatarIndex);
+            // Receivers that understand this acknowledge it in every PlayerRoundInfoMessage.
+            serialized.put(KEY_SUPPORTS_PACKED_SPELLS, true);
         } catch (JSONException e) {
             Log.w(TAG, "JSONException converting spell list to JSON.", e);
         }
 
         return serialized;
     }
+
+    @Override
+    public void writeTo(JsonSink sink) {
+        sink.beginObject();
+        // JSONObject drops keys with null values, so leave the name out the same way.
+        if (mPlayerName != null) {
+            sink.name(KEY_PLAYER_NAME).value(mPlayerName);
+        }
+        sink.name(KEY_AVATAR_INDEX).value(mAvatarIndex)
+                .name(KEY_SUPPORTS_PACKED_SPELLS).value(true)
+                .endObject();
+    }
 }
@@ -15,49 +15,40 @@ package com.google.cast.samples.games.spellcast.messages;
 
 import com.google.cast.samples.games.spellcast.messages.SpellCastMessage.PlayerBonus;
 
-import android.util.Log;
-
-import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
  * Represents the message that arrives at the start of every player turn, containing the player
- * bonus and round duration in milliseconds.
+ * bonus and round duration in milliseconds. An instance can be reused for every turn with
+ * {@link #parse}.
  */
 public class PlayerRoundInfoMessage {
 
-    private static final String KEY_PLAYER_BONUS = "playerBonus";
-    private static final String KEY_CAST_SPELLS_DURATION = "castSpellsDurationMillis";
-
-    private static final String TAG = "PlayerRoundInfoMessage";
+    private static final String KEY_PLAYER_BONUS = MessageSchema.PlayerMessage.KEY_PLAYER_BONUS;
+    private static final String KEY_CAST_SPELLS_DURATION =
+            MessageSchema.PlayerMessage.KEY_CAST_SPELLS_DURATION_MILLIS;
+    private static final String KEY_PACKED_SPELLS = MessageSchema.PlayerMessage.KEY_PACKED_SPELLS;
 
     private PlayerBonus mPlayerBonus = PlayerBonus.NONE;
     private int mCastSpellsDurationMillis = 0;
+    private boolean mIsPackedSpellsAccepted = false;
 
-    public PlayerRoundInfoMessage(JSONObject message) {
-        try {
-            mCastSpellsDurationMillis = message.getInt(KEY_CAST_SPELLS_DURATION);
-            int playerBonusInt = message.getInt(KEY_PLAYER_BONUS);
-            mPlayerBonus = getPlayerBonusFromInt(playerBonusInt);
+    public PlayerRoundInfoMessage() {
+    }
 
-        } catch (JSONException e) {
-            Log.w(TAG, "JSONException parsing gameData: " + message, e);
-        }
+    public PlayerRoundInfoMessage(JSONObject message) {
+        parse(message);
     }
 
-    private PlayerBonus getPlayerBonusFromInt(int playerBonus) {
-        switch (playerBonus) {
-            case 1:
-                return PlayerBonus.NONE;
-            case 2:
-                return PlayerBonus.ATTACK;
-            case 3:
-                return PlayerBonus.HEAL;
-            case 4:
-                return PlayerBonus.SHIELD;
-            default:
-                return PlayerBonus.NONE;
-        }
+    /**
+     * Replaces the contents of this message with the passed in message.
+     */
+    public void parse(JSONObject message) {
+        // Missing or malformed values fall back to the defaults, and unknown bonus ids to NONE.
+        mCastSpellsDurationMillis = message.optInt(KEY_CAST_SPELLS_DURATION, 0);
+        mPlayerBonus = MessageSchema.decodePlayerBonus(message.optInt(KEY_PLAYER_BONUS, 0));
+        // Older receivers do not send this, so they keep getting JSON spells.
+        mIsPackedSpellsAccepted = message.optBoolean(KEY_PACKED_SPELLS, false);
     }
 
     public PlayerBonus getPlayerBonus() {
@@ -68,4 +59,11 @@ public class PlayerRoundInfoMessage {
         return mCastSpellsDurationMillis;
     }
 
+    /**
+     * @return True if the receiver accepts spells packed with {@link PackedSpellCodec}.
+     */
+    public boolean isPackedSpellsAccepted() {
+        return mIsPackedSpellsAccepted;
+    }
+
 }
@@ -15,60 +15,68 @@ package com.google.cast.samples.games.spellcast.messages;
 
 import com.google.cast.samples.games.spellcast.SpellcastGameModel;
 
-import android.util.Log;
-
-import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
- * State of the Game
+ * State of the Game. Instances are immutable and interned, one per game state, so a snapshot can
+ * be shared between threads and compared by identity.
  */
-public class SpellCastGameData {
-    private static final String KEY_GAME_STATE_ID = "gameStateId";
-    private static final String TAG = "SpellCastGameData";
+public final class SpellCastGameData {
+    private static final String KEY_GAME_STATE_ID = MessageSchema.GameData.KEY_GAME_STATE_ID;
 
+    private static final SpellCastGameData[] sInstances;
 
-    private SpellcastGameModel.ReceiverGameState mCurrentGameState =
-            SpellcastGameModel.ReceiverGameState.UNKNOWN;
+    static {
+        SpellcastGameModel.ReceiverGameState[] gameStates =
+                SpellcastGameModel.ReceiverGameState.values();
+        sInstances = new SpellCastGameData[gameStates.length];
+        for (int i = 0; i < gameStates.length; ++i) {
+            sInstances[i] = new SpellCastGameData(gameStates[i]);
+        }
+    }
 
-    public SpellCastGameData(JSONObject gameData) {
-        if (gameData != null) {
-            try {
-                int receiverStateId = gameData.getInt(KEY_GAME_STATE_ID);
-                mCurrentGameState = getGameStateFromId(receiverStateId);
+    private final SpellcastGameModel.ReceiverGameState mCurrentGameState;
+    private final boolean mIsInCombat;
 
-            } catch (JSONException e) {
-                Log.w(TAG, "JSONException parsing gameData", e);
-            }
-        }
+    private SpellCastGameData(SpellcastGameModel.ReceiverGameState gameState) {
+        mCurrentGameState = gameState;
+        mIsInCombat = gameState == SpellcastGameModel.ReceiverGameState.PLAYER_ACTION
+                || gameState == SpellcastGameModel.ReceiverGameState.PLAYER_RESOLUTION
+                || gameState == SpellcastGameModel.ReceiverGameState.ENEMY_RESOLUTION;
     }
 
-    private SpellcastGameModel.ReceiverGameState getGameStateFromId(int gameStateId) {
-        switch (gameStateId) {
-            case 0:
-                return SpellcastGameModel.ReceiverGameState.UNKNOWN;
-            case 1:
-                return SpellcastGameModel.ReceiverGameState.WAITING_FOR_PLAYERS;
-            case 2:
-                return SpellcastGameModel.ReceiverGameState.INSTRUCTIONS;
-            case 3:
-                return SpellcastGameModel.ReceiverGameState.PLAYER_ACTION;
-            case 4:
-                return SpellcastGameModel.ReceiverGameState.PLAYER_RESOLUTION;
-            case 5:
-                return SpellcastGameModel.ReceiverGameState.ENEMY_RESOLUTION;
-            case 6:
-                return SpellcastGameModel.ReceiverGameState.PLAYER_VICTORY;
-            case 7:
-                return SpellcastGameModel.ReceiverGameState.ENEMY_VICTORY;
-            case 8:
-                return SpellcastGameModel.ReceiverGameState.PAUSED;
-            default:
-                return SpellcastGameModel.ReceiverGameState.UNKNOWN;
-        }
+    /**
+     * Reads the game data sent by the receiver. Only the game state id is looked up, so this takes
+     * the same time however much other data the receiver puts in the game data.
+     *
+     * @param gameData The game data from the receiver, or null.
+     * @return The shared snapshot for the game state, UNKNOWN if it is missing or unknown.
+     */
+    public static SpellCastGameData fromJSON(JSONObject gameData) {
+        int gameStateId = gameData != null ? gameData.optInt(KEY_GAME_STATE_ID, 0) : 0;
+        return sInstances[MessageSchema.decodeGameStateId(gameStateId).ordinal()];
     }
 
     public SpellcastGameModel.ReceiverGameState getGameState() {
         return mCurrentGameState;
     }
+
+    /**
+     * @return True if a new player can join the game.
+     */
+    public boolean isJoinable() {
+        return mCurrentGameState == SpellcastGameModel.ReceiverGameState.WAITING_FOR_PLAYERS;
+    }
+
+    /**
+     * @return True if the game is in one of the combat phases.
+     */
+    public boolean isInCombat() {
+        return mIsInCombat;
+    }
+
+    @Override
+    public String toString() {
+        return "SpellCastGameData(" + mCurrentGameState + ")";
+    }
 }
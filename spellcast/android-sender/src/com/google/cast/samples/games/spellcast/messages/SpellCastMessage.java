@@ -22,15 +22,14 @@ import org.json.JSONObject;
  */
 public abstract class SpellCastMessage implements EventManager.EventData {
 
-    private interface SpellCastEnum {
-        int ordinal();
-    }
+    // The result of toJSON, until a subclass changes the message.
+    private JSONObject mCachedJSON;
 
     /**
      * Enumeration of the different difficulty settings available. Keep in sync with
      * {@code cast.games.spellcast.messages.DifficultySetting}
      */
-    public enum DifficultySetting implements SpellCastEnum {
+    public enum DifficultySetting {
         EASY,
         NORMAL,
         HARD,
@@ -40,7 +39,7 @@ public abstract class SpellCastMessage implements EventManager.EventData {
      * Enumeration of the possible player bonuses that can be given each round. Keep in sync with
      * {@code cast.games.spellcast.messages.PlayerBonus}
      */
-    public enum PlayerBonus implements SpellCastEnum {
+    public enum PlayerBonus {
         NONE,
         ATTACK,
         HEAL,
@@ -51,7 +50,7 @@ public abstract class SpellCastMessage implements EventManager.EventData {
      * Enumeration of the different spell types. Keep in sync with
      * {@code cast.games.spellcast.messages.SpellType}
      */
-    public enum SpellType implements SpellCastEnum {
+    public enum SpellType {
         BASIC_ATTACK,
         HEAL,
         SHIELD
@@ -61,7 +60,7 @@ public abstract class SpellCastMessage implements EventManager.EventData {
      * Enumeration of the different spell elements. Keep in sync with
      * {@code cast.games.spellcast.messages.SpellElement}
      */
-    public enum SpellElement implements SpellCastEnum {
+    public enum SpellElement {
         NONE,
         AIR,
         WATER,
@@ -74,15 +73,68 @@ public abstract class SpellCastMessage implements EventManager.EventData {
      * traced the spell's rune. Keep in sync with
      * {@code cast.games.spellcast.messages.SpellAccuracy}
      */
-    public enum SpellAccuracy implements SpellCastEnum {
+    public enum SpellAccuracy {
         PERFECT,
         GREAT,
         GOOD,
     }
 
-    public static int spellCastEnumToInt(SpellCastEnum e) {
-        return e.ordinal() + 1;
+    // The wire ids come from the message schema, see MessageSchema.
+
+    public static int spellCastEnumToInt(DifficultySetting e) {
+        return MessageSchema.encode(e);
+    }
+
+    public static int spellCastEnumToInt(PlayerBonus e) {
+        return MessageSchema.encode(e);
+    }
+
+    public static int spellCastEnumToInt(SpellType e) {
+        return MessageSchema.encode(e);
+    }
+
+    public static int spellCastEnumToInt(SpellElement e) {
+        return MessageSchema.encode(e);
+    }
+
+    public static int spellCastEnumToInt(SpellAccuracy e) {
+        return MessageSchema.encode(e);
     }
 
     public abstract JSONObject toJSON();
+
+    /**
+     * Writes the same JSON as {@link #toJSON()} straight into a sink, without building a tree of
+     * objects first.
+     */
+    public abstract void writeTo(JsonSink sink);
+
+    /**
+     * @return The message as a JSON string, written with {@link #writeTo}.
+     */
+    @Override
+    public String toString() {
+        JsonSink sink = new JsonSink();
+        writeTo(sink);
+        return sink.toString();
+    }
+
+    /**
+     * @return The message as JSON, only serialized again after the message changed. The returned
+     *         object must not be modified. Not thread-safe, so mutable messages should only be
+     *         used from one thread.
+     */
+    public JSONObject getCachedJSON() {
+        if (mCachedJSON == null) {
+            mCachedJSON = toJSON();
+        }
+        return mCachedJSON;
+    }
+
+    /**
+     * Subclasses must call this whenever the contents of the message change.
+     */
+    protected void invalidateCachedJSON() {
+        mCachedJSON = null;
+    }
 }
@@ -0,0 +1,78 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.spells;
+
+import com.google.cast.samples.games.spellcast.runes.PointCloudMatcher;
+import com.google.cast.samples.games.spellcast.runes.RuneDrawing;
+import com.google.cast.samples.games.spellcast.runes.ScoringTemplate;
+
+import java.util.HashMap;
+
+/**
+ * Scores the raw stroke points of a drawing in the style of the $P point-cloud recognizer. Both the
+ * drawing and the rune are reduced to clouds of a few dozen points, normalized for scale and
+ * position, and then matched greedily point to point. This is much less work than comparing every
+ * cell, and it does not care how large the drawing view is or where in it the player drew.
+ *
+ * <p>The rune cloud is sampled from the black cells of its scoring template, so no extra assets are
+ * needed. Drawings with a different number of strokes than the spell are rejected outright.
+ */
+public class PointCloudRuneScorer implements RuneScorer {
+    public static final int DEFAULT_NUM_POINTS = 32;
+
+    // Average distance between matched points, relative to the size of the drawing, at which the
+    // score drops to 0, and stays there for drawings further away. Lower values make scoring
+    // stricter.
+    private static final float MAX_AVERAGE_DISTANCE = 0.2f;
+
+    private static final float REJECTED_SCORE = 0.0f;
+
+    private final PointCloudMatcher mMatcher;
+    private final HashMap<ScoringTemplate, float[]> mTemplateClouds = new HashMap<>();
+
+    public PointCloudRuneScorer() {
+        this(DEFAULT_NUM_POINTS);
+    }
+
+    /**
+     * @param numPoints How many points the drawing and rune are resampled to.
+     */
+    public PointCloudRuneScorer(int numPoints) {
+        mMatcher = new PointCloudMatcher(numPoints);
+    }
+
+    @Override
+    public float getScore(Spell spell, SpellRune rune, RuneDrawing drawing) {
+        if (drawing.getStrokeCount() != spell.getNumDrawStrokes()) {
+            return REJECTED_SCORE;
+        }
+        float[] drawnCloud = mMatcher.getStrokeCloud(drawing.getStrokes());
+        float[] templateCloud = getTemplateCloud(rune.getScoringTemplate());
+        if (drawnCloud == null || templateCloud == null) {
+            return REJECTED_SCORE;
+        }
+
+        float averageDistance = mMatcher.getAverageDistance(drawnCloud, templateCloud);
+        return Math.max(REJECTED_SCORE, 100.0f * (1.0f - averageDistance / MAX_AVERAGE_DISTANCE));
+    }
+
+    private synchronized float[] getTemplateCloud(ScoringTemplate template) {
+        if (mTemplateClouds.containsKey(template)) {
+            return mTemplateClouds.get(template);
+        }
+        float[] cloud = mMatcher.getTemplateCloud(template);
+        mTemplateClouds.put(template, cloud);
+        return cloud;
+    }
+}
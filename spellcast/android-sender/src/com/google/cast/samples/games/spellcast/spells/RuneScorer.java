@@ -0,0 +1,31 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.spells;
+
+import com.google.cast.samples.games.spellcast.runes.RuneDrawing;
+
+/**
+ * Engine used by a {@link Spell} to score how well the player drew its rune. Scorers are called on
+ * the SpellAnalyzer worker thread, so implementations must be thread-safe.
+ */
+public interface RuneScorer {
+    /**
+     * @param spell The spell the player was drawing. Its rune is loaded.
+     * @param rune The rune of the spell.
+     * @param drawing What the player drew.
+     * @return A score that is roughly between 0 - 100, where values above the accuracy thresholds
+     *         in TouchControllerView mean the spell was cast successfully.
+     */
+    float getScore(Spell spell, SpellRune rune, RuneDrawing drawing);
+}
@@ -0,0 +1,84 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.spells;
+
+import com.google.cast.samples.games.spellcast.runes.RuneTemplatePackFormat;
+import com.google.cast.samples.games.spellcast.runes.ScoringTemplate;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The rune scoring templates, precompiled at build time by the rune-tools RuneTemplatePacker and
+ * read through a memory mapped asset. The pack must be stored uncompressed in the APK so that it
+ * can be mapped, see the aaptOptions in build.gradle.
+ */
+public class RuneTemplatePack {
+    public static final String ASSET_PACK_FILE = "scoring_templates.pack";
+    private static final String TAG = "RuneTemplatePack";
+
+    private final Map<String, ScoringTemplate> mTemplates;
+
+    private RuneTemplatePack(Map<String, ScoringTemplate> templates) {
+        mTemplates = templates;
+    }
+
+    /**
+     * @param assets The asset manager holding the pack.
+     * @param packFile The path of the pack in the assets.
+     * @return The templates in the pack. The pack is empty if the file is missing or invalid.
+     */
+    public static RuneTemplatePack load(AssetManager assets, String packFile) {
+        AssetFileDescriptor descriptor = null;
+        FileInputStream stream = null;
+        try {
+            descriptor = assets.openFd(packFile);
+            stream = descriptor.createInputStream();
+            FileChannel channel = stream.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getLength());
+            return new RuneTemplatePack(RuneTemplatePackFormat.read(buffer));
+        } catch (IOException e) {
+            Log.w(TAG, "IOException loading rune template pack " + packFile + ": " + e);
+        } finally {
+            try {
+                if (stream != null) {
+                    stream.close();
+                }
+                if (descriptor != null) {
+                    descriptor.close();
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "IOException while trying to close rune template pack: " + e);
+            }
+        }
+        return new RuneTemplatePack(Collections.<String, ScoringTemplate>emptyMap());
+    }
+
+    /**
+     * @param runeTemplate The file name of the scoring template image.
+     * @return The precompiled template, or null if it is not in the pack.
+     */
+    public ScoringTemplate getTemplate(String runeTemplate) {
+        return mTemplates.get(runeTemplate);
+    }
+}
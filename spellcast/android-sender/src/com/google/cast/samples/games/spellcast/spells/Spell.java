@@ -18,16 +18,24 @@ import com.google.cast.samples.games.spellcast.SpellcastApplication;
 import com.google.cast.samples.games.spellcast.messages.SpellCastMessage.PlayerBonus;
 import com.google.cast.samples.games.spellcast.messages.SpellCastMessage.SpellElement;
 import com.google.cast.samples.games.spellcast.messages.SpellCastMessage.SpellType;
+import com.google.cast.samples.games.spellcast.runes.RuneDrawing;
+import com.google.cast.samples.games.spellcast.runes.ScoringTemplate;
 
 import android.graphics.Bitmap;
 import android.util.Log;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Implementation of a spell that can be cast by the user.
  */
 public class Spell {
     private static final String TAG = "Spell";
 
+    private static final RuneScorer DEFAULT_RUNE_SCORER = new TemplateRuneScorer();
+    // The score of drawings of a spell whose rune failed to load.
+    private static final float UNLOADED_SCORE = 0.0f;
+
     private final int mNameResourceId;
     private final int mIconResourceId;
     private final int mIconSelectedResourceId;
@@ -37,9 +45,16 @@ public class Spell {
     private final String mRuneAssetFile;
     private final int mNumberOfStrokes;
 
-    private SpellRune mSpellRune = null;
+    // Spells are loaded on a background thread by SpellAssetLoader and used on the UI thread.
+    private volatile SpellRune mSpellRune = null;
 
-    private boolean mIsLoaded = false;
+    private volatile boolean mIsLoaded = false;
+    // Set by the one caller that does the loading.
+    private final AtomicBoolean mIsLoading = new AtomicBoolean(false);
+    // Notified when a load finishes, see #awaitLoaded.
+    private final Object mLoadLock = new Object();
+
+    private volatile RuneScorer mRuneScorer = DEFAULT_RUNE_SCORER;
 
     public Spell(final int spellNameResourceId, final int iconResourceId,
             final int iconSelectedResourceId, final SpellElement spellElement,
@@ -57,17 +72,52 @@ public class Spell {
     }
 
     /**
+     * Loads the rune of this spell. This is safe to call from any thread and never waits: only the
+     * first caller does the loading, and any other caller returns immediately whether or not the
+     * spell is loaded yet. Use {@link SpellAssetLoader#whenReady} to know when it is.
+     * {@link SpellAssetLoader} normally does this in the background when the app starts. If the
+     * rune cannot be loaded, a later call tries again.
+     *
      * @return True if loading occurred, false otherwise.
      */
     public boolean loadSpell() {
-        if (isLoaded()) {
+        if (isLoaded() || !mIsLoading.compareAndSet(false, true)) {
             return false;
         }
 
         Log.d(TAG, "Loading rune: " + mRuneScoreTemplate + " --- " + mRuneAssetFile);
-        mSpellRune = SpellRune.loadRune(SpellcastApplication.getInstance().getAssets(),
-                mRuneScoreTemplate, mRuneAssetFile);
-        mIsLoaded = true;
+        try {
+            mSpellRune = SpellRune.loadRune(SpellcastApplication.getInstance().getAssets(),
+                    mRuneScoreTemplate, mRuneAssetFile);
+            mIsLoaded = mSpellRune != null;
+        } finally {
+            synchronized (mLoadLock) {
+                // Lets a later call try again if loading failed.
+                mIsLoading.set(mIsLoaded);
+                mLoadLock.notifyAll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads the rune of this spell, or waits for the caller that is already loading it. Only call
+     * this from a background thread.
+     *
+     * @return True if the spell is loaded, false if loading failed.
+     */
+    private boolean awaitLoaded() {
+        loadSpell();
+        synchronized (mLoadLock) {
+            while (!mIsLoaded && mIsLoading.get()) {
+                try {
+                    mLoadLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
         return mIsLoaded;
     }
 
@@ -113,10 +163,47 @@ public class Spell {
         return mSpellRune.getTracingBitmap();
     }
 
+    /**
+     * @return The scoring template of the rune, or null if the spell is not loaded.
+     */
+    public ScoringTemplate getScoringTemplate() {
+        if (!isLoaded()) {
+            return null;
+        }
+        return mSpellRune.getScoringTemplate();
+    }
+
     public float getRuneScore(Bitmap playerDrawnRune) {
+        if (!awaitLoaded()) {
+            return UNLOADED_SCORE;
+        }
         return mSpellRune.getRuneScore(playerDrawnRune);
     }
 
+    /**
+     * Sets the engine used to score drawings of this spell. By default drawings are scored against
+     * the scoring template of the rune with a {@link TemplateRuneScorer}.
+     */
+    public void setRuneScorer(RuneScorer runeScorer) {
+        mRuneScorer = runeScorer != null ? runeScorer : DEFAULT_RUNE_SCORER;
+    }
+
+    public RuneScorer getRuneScorer() {
+        return mRuneScorer;
+    }
+
+    /**
+     * @param drawing What the player drew.
+     * @return The score of the drawing according to the rune scorer of this spell. Waits for the
+     *         rune to be loaded, so only call this from a background thread.
+     */
+    public float getRuneScore(RuneDrawing drawing) {
+        if (!awaitLoaded()) {
+            return UNLOADED_SCORE;
+        }
+        return mRuneScorer.getScore(this, mSpellRune, drawing);
+    }
+
     /**
      * Returns true if this spell will increased effected based on the PlayerBonus passed in.
      */
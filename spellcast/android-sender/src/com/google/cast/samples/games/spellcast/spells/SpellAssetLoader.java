@@ -0,0 +1,147 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.spells;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads the assets of a list of spells on a background thread, so that decoding runes is not on
+ * the critical path between connecting to the receiver and showing the lobby. This is started by
+ * the Application class as soon as the app launches.
+ */
+public class SpellAssetLoader {
+
+    /**
+     * Listener called on the UI thread once every spell is loaded.
+     */
+    public interface OnSpellsLoadedListener {
+        void onSpellsLoaded();
+    }
+
+    private static final String TAG = "SpellAssetLoader";
+    private static final String THREAD_NAME = "SpellAssetLoader";
+
+    private final List<Spell> mSpells;
+    private final Handler mMainHandler;
+    private final ArrayList<OnSpellsLoadedListener> mPendingListeners = new ArrayList<>();
+
+    private Future<?> mFuture;
+    private boolean mIsReady = false;
+
+    /**
+     * @param spells The spells to load.
+     */
+    public SpellAssetLoader(List<Spell> spells) {
+        mSpells = new ArrayList<>(spells);
+        mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Starts loading the spells in the background. Calling this more than once has no effect.
+     *
+     * @return A future that completes when every spell is loaded.
+     */
+    public synchronized Future<?> start() {
+        if (mFuture != null) {
+            return mFuture;
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, THREAD_NAME);
+            }
+        });
+        mFuture = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (Spell spell : mSpells) {
+                        spell.loadSpell();
+                    }
+                    Log.d(TAG, "Loaded " + mSpells.size() + " spells.");
+                } finally {
+                    onSpellsLoaded();
+                }
+            }
+        });
+        // Let the thread go away once the spells are loaded.
+        executor.shutdown();
+        return mFuture;
+    }
+
+    /**
+     * @return A future that completes when every spell is loaded, or null if loading has not been
+     *         started.
+     */
+    public synchronized Future<?> getFuture() {
+        return mFuture;
+    }
+
+    public synchronized boolean isReady() {
+        return mIsReady;
+    }
+
+    /**
+     * Calls the listener on the UI thread once every spell is loaded. If the spells are already
+     * loaded and this is called from the UI thread, the listener is called immediately.
+     */
+    public void whenReady(final OnSpellsLoadedListener listener) {
+        synchronized (this) {
+            if (!mIsReady) {
+                mPendingListeners.add(listener);
+                return;
+            }
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            listener.onSpellsLoaded();
+        } else {
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onSpellsLoaded();
+                }
+            });
+        }
+    }
+
+    private void onSpellsLoaded() {
+        final ArrayList<OnSpellsLoadedListener> listeners;
+        synchronized (this) {
+            mIsReady = true;
+            listeners = new ArrayList<>(mPendingListeners);
+            mPendingListeners.clear();
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (OnSpellsLoadedListener listener : listeners) {
+                    listener.onSpellsLoaded();
+                }
+            }
+        });
+    }
+}
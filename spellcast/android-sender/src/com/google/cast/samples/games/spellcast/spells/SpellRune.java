@@ -14,11 +14,11 @@
 package com.google.cast.samples.games.spellcast.spells;
 
 import com.google.cast.samples.games.spellcast.ImageUtil;
+import com.google.cast.samples.games.spellcast.runes.ScoringTemplate;
 
 import android.content.res.AssetManager;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.Color;
 import android.util.Log;
 
 import java.io.File;
@@ -32,16 +32,25 @@ public class SpellRune {
     public static final String ASSET_RUNE_PATH = "runes";
     public static final String ASSET_RUNE_TEMPLATE_PATH = "scoring_templates";
     private static final String TAG = "SpellRune";
-    // All template images are converted to a byte array that is TEMPLATE_SIZE x TEMPLATE_SIZE.
-    private static final int TEMPLATE_SIZE = ImageUtil.RESOLUTION;
-    private static final byte SCORE_BLACK = 2;
-    private static final byte SCORE_DARK_GRAY = 1;
-    private static final byte SCORE_LIGHT_GRAY = 0;
-    private static final byte SCORE_WHITE = -2;
+    // All template images are converted to a template that is TEMPLATE_SIZE x TEMPLATE_SIZE.
+    private static final int TEMPLATE_SIZE = ScoringTemplate.TEMPLATE_SIZE;
 
     // Private member variables for a SpellRune.
     private final Bitmap mTracingBitmap;
-    private final byte[][] mScoringTemplate;
+    private final ScoringTemplate mScoringTemplate;
+
+    private static RuneTemplatePack sTemplatePack;
+
+    /**
+     * @return The precompiled scoring templates, memory mapped the first time they are needed.
+     */
+    private static synchronized RuneTemplatePack getTemplatePack(AssetManager assets) {
+        if (sTemplatePack == null) {
+            sTemplatePack = RuneTemplatePack.load(assets,
+                    new File(ASSET_RUNE_PATH, RuneTemplatePack.ASSET_PACK_FILE).getPath());
+        }
+        return sTemplatePack;
+    }
 
     public static SpellRune loadRune(AssetManager assets, String runeTemplate, String runeFile) {
         InputStream bitmapStream = null;
@@ -53,6 +62,15 @@ public class SpellRune {
             bitmapStream = assets.open(new File(runeDirectory, runeFile).getPath());
             Bitmap runeBitmap = BitmapFactory.decodeStream(bitmapStream);
             bitmapStream.close();
+            bitmapStream = null;
+
+            // Use the precompiled scoring template, and only fall back to decoding the template
+            // image if the pack is missing or out of date.
+            ScoringTemplate scoringTemplate = getTemplatePack(assets).getTemplate(runeTemplate);
+            if (scoringTemplate != null) {
+                return new SpellRune(runeBitmap, scoringTemplate);
+            }
+            Log.w(TAG, "Scoring template " + runeTemplate + " is not in the template pack.");
 
             // Load Scoring Template.
             bitmapStream = assets.open(new File(scoringTemplatePath, runeTemplate).getPath());
@@ -65,8 +83,10 @@ public class SpellRune {
                 return null;
             }
 
-            SpellRune rune = new SpellRune(runeBitmap,
-                    getScoringTemplateBitmap(scoringTemplateBitmap));
+            int[] pixels = new int[TEMPLATE_SIZE * TEMPLATE_SIZE];
+            scoringTemplateBitmap.getPixels(pixels, 0, TEMPLATE_SIZE, 0, 0, TEMPLATE_SIZE,
+                    TEMPLATE_SIZE);
+            SpellRune rune = new SpellRune(runeBitmap, ScoringTemplate.fromPixels(pixels));
             scoringTemplateBitmap.recycle();
 
             return rune;
@@ -86,38 +106,6 @@ public class SpellRune {
         return null;
     }
 
-    /**
-     * @param bitmap A bitmap of size TEMPLATE_SIZE x TEMPLATE_SIZE.
-     * @return A byte array representing the scoring template for the rune.
-     */
-    private static byte[][] getScoringTemplateBitmap(Bitmap bitmap) {
-        byte[][] scoringTemplate = new byte[TEMPLATE_SIZE][TEMPLATE_SIZE];
-        int[] pixels = new int[TEMPLATE_SIZE * TEMPLATE_SIZE];
-        bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
-        int i = 0;
-        int j = 0;
-        for (int index = 0; index < pixels.length; ++index) {
-            int c = Color.red(pixels[index]);
-            if (c < 18) {
-                scoringTemplate[i][j] = SCORE_BLACK;
-            } else if (c < 110) {
-                scoringTemplate[i][j] = SCORE_DARK_GRAY;
-            } else if (c < 210) {
-                scoringTemplate[i][j] = SCORE_LIGHT_GRAY;
-            } else {
-                scoringTemplate[i][j] = SCORE_WHITE;
-            }
-
-            j++;
-            if (j >= TEMPLATE_SIZE) {
-                i++;
-                j = 0;
-            }
-        }
-
-        return scoringTemplate;
-    }
-
     /**
      * @param tracingBitmap Bitmap to be shown to the player when prompting player to trace.
      * @param scoringTemplate A byte array representing the scoring template for the rune. Templates
@@ -129,6 +117,14 @@ public class SpellRune {
      *            player traced the rune.
      */
     public SpellRune(Bitmap tracingBitmap, byte[][] scoringTemplate) {
+        this(tracingBitmap, ScoringTemplate.fromScoreGrid(scoringTemplate));
+    }
+
+    /**
+     * @param tracingBitmap Bitmap to be shown to the player when prompting player to trace.
+     * @param scoringTemplate The bit-packed scoring template for the rune.
+     */
+    public SpellRune(Bitmap tracingBitmap, ScoringTemplate scoringTemplate) {
         mTracingBitmap = tracingBitmap;
         mScoringTemplate = scoringTemplate;
     }
@@ -137,6 +133,10 @@ public class SpellRune {
         return mTracingBitmap;
     }
 
+    public ScoringTemplate getScoringTemplate() {
+        return mScoringTemplate;
+    }
+
     /**
      * @param playerDrawnRune A bitmap representing the image that the player drew.
      * @return A float representing the score of the rune drawn by the player. This is a number that
@@ -146,23 +146,15 @@ public class SpellRune {
      *         tracing.
      */
     public float getRuneScore(Bitmap playerDrawnRune) {
-        byte[][] drawnPixelData = ImageUtil.getPixelData(playerDrawnRune);
-
-        int filledPixelsScore = 0;
-        int score = 0;
-
-        for (int i = 0; i < TEMPLATE_SIZE; ++i) {
-            for (int j = 0; j < TEMPLATE_SIZE; ++j) {
-                if (drawnPixelData[i][j] == 1) {
-                    score += mScoringTemplate[i][j];
-                }
-                if (mScoringTemplate[i][j] == SCORE_BLACK) {
-                    filledPixelsScore += SCORE_BLACK;
-                }
-            }
-        }
+        return getRuneScore(ImageUtil.getPixelMask(playerDrawnRune));
+    }
 
-        float percentage = score * 100.0f / filledPixelsScore;
-        return percentage;
+    /**
+     * @param drawnRows Bit mask of the cells the player drew on, one long per row, as returned by
+     *            {@link ImageUtil#getPixelMask(Bitmap)}.
+     * @return The score of the rune drawn by the player, see {@link #getRuneScore(Bitmap)}.
+     */
+    public float getRuneScore(long[] drawnRows) {
+        return mScoringTemplate.getScorePercentage(drawnRows);
     }
 }
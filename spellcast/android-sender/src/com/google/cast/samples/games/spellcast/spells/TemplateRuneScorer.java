@@ -0,0 +1,27 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.spells;
+
+import com.google.cast.samples.games.spellcast.runes.RuneDrawing;
+
+/**
+ * Scores a drawing by how much of it overlaps the scoring template of the rune. This is the
+ * original scoring method and the default one for every spell.
+ */
+public class TemplateRuneScorer implements RuneScorer {
+    @Override
+    public float getScore(Spell spell, SpellRune rune, RuneDrawing drawing) {
+        return rune.getRuneScore(drawing.getCellRows());
+    }
+}
@@ -626,6 +626,7 @@ goog.exportSymbol("cast.games.spellcast.messages.GameData", cast.games.spellcast
 cast.games.spellcast.messages.PlayerReadyData = function() {
   this.playerName = "";
   this.avatarIndex = 0;
+  this.supportsPackedSpells = !1;
 };
 goog.exportSymbol("cast.games.spellcast.messages.PlayerReadyData", cast.games.spellcast.messages.PlayerReadyData);
 cast.games.spellcast.messages.PlayerPlayingData = function() {
@@ -635,6 +636,7 @@ goog.exportSymbol("cast.games.spellcast.messages.PlayerPlayingData", cast.games.
 cast.games.spellcast.messages.PlayerMessage = function() {
   this.playerBonus = cast.games.spellcast.messages.PlayerBonus.NONE;
   this.castSpellsDurationMillis = 0;
+  this.packedSpells = !1;
 };
 goog.exportSymbol("cast.games.spellcast.messages.PlayerMessage", cast.games.spellcast.messages.PlayerMessage);
 cast.games.spellcast.messages.Spell = function() {
@@ -645,8 +647,19 @@ cast.games.spellcast.messages.Spell = function() {
 goog.exportSymbol("cast.games.spellcast.messages.Spell", cast.games.spellcast.messages.Spell);
 cast.games.spellcast.messages.SpellMessage = function() {
   this.spells = [];
+  this.packedSpells = void 0;
 };
 goog.exportSymbol("cast.games.spellcast.messages.SpellMessage", cast.games.spellcast.messages.SpellMessage);
+cast.games.spellcast.messages.SpellMessage.unpackSpells = function(packedSpells) {
+  for (var bytes = window.atob(packedSpells), spells = [], i = 0;i < bytes.length;i++) {
+    var packedSpell = bytes.charCodeAt(i), spell = new cast.games.spellcast.messages.Spell;
+    spell.spellType = packedSpell >> 5 & 3;
+    spell.spellElement = packedSpell >> 2 & 7;
+    spell.spellAccuracy = packedSpell & 3;
+    spells.push(spell);
+  }
+  return spells;
+};
 cast.games.spellcast.GameConstants = function() {
 };
 cast.games.spellcast.GameConstants.MAX_PLAYERS = 4;
@@ -1736,7 +1749,7 @@ cast.games.spellcast.states.PlayerActionPhase.prototype.onGameMessage_ = functio
       if (!enemy) {
         throw Error("No enemy defined during player action phase.");
       }
-      var actions = cast.games.spellcast.ActionParser.parse(this.actionManager_, caster, enemy, spellMessage.spells);
+      var spells = "string" === typeof spellMessage.packedSpells ? cast.games.spellcast.messages.SpellMessage.unpackSpells(spellMessage.packedSpells) : spellMessage.spells || [], actions = cast.games.spellcast.ActionParser.parse(this.actionManager_, caster, enemy, spells);
       this.actions_[playerId] = actions;
       -1 == this.receivedPlayerIds_.indexOf(playerId) && this.receivedPlayerIds_.push(playerId);
       this.receivedPlayerIds_.length >= this.gameManager_.getConnectedPlayers().length && (this.stateMachine_.getState(cast.games.spellcast.messages.GameStateId.PLAYER_RESOLUTION).setPlayerActions(this.actions_), this.stateMachine_.goToState(cast.games.spellcast.messages.GameStateId.PLAYER_RESOLUTION));
@@ -2462,10 +2475,11 @@ cast.games.spellcast.SpellcastGame.prototype.assignBonusesAndNotifyPlayers = fun
     delete this.playerBonus_[keys[i]];
   }
   for (i = 0;i < this.playingPlayers_.length;i++) {
-    var playerId = this.playingPlayers_[i].playerId, playerBonus = this.getRandomPlayerBonus();
+    var playerId = this.playingPlayers_[i].playerId, playerReadyData = this.playingPlayers_[i].playerData, playerBonus = this.getRandomPlayerBonus();
     this.playerBonus_[playerId] = playerBonus;
     this.playerMessage_.playerBonus = playerBonus;
     this.playerMessage_.castSpellsDurationMillis = cast.games.spellcast.GameConstants.DIFFICULTY_ACTION_PHASE_DURATION_MAP[this.gameDifficulty_];
+    this.playerMessage_.packedSpells = !!playerReadyData && !!playerReadyData.supportsPackedSpells;
     this.gameManager_.sendGameMessageToPlayer(playerId, this.playerMessage_);
   }
 };
@@ -955,12 +955,17 @@ cast.games.spellcast.SpellcastGame.prototype.assignBonusesAndNotifyPlayers =
   }
   for (var i = 0; i < this.playingPlayers_.length; i++) {
     var playerId = this.playingPlayers_[i].playerId;
+    var playerReadyData =
+        /** @type {cast.games.spellcast.messages.PlayerReadyData} */ (
+            this.playingPlayers_[i].playerData);
     var playerBonus = this.getRandomPlayerBonus();
     this.playerBonus_[playerId] = playerBonus;
     this.playerMessage_.playerBonus = playerBonus;
     this.playerMessage_.castSpellsDurationMillis =
         cast.games.spellcast.GameConstants.
             DIFFICULTY_ACTION_PHASE_DURATION_MAP[this.gameDifficulty_];
+    this.playerMessage_.packedSpells =
+        !!playerReadyData && !!playerReadyData.supportsPackedSpells;
     this.gameManager_.sendGameMessageToPlayer(playerId, this.playerMessage_);
   }
 };
@@ -27,6 +27,11 @@ goog.provide('cast.games.spellcast.messages.SpellMessage');
 goog.provide('cast.games.spellcast.messages.SpellType');
 
 
+// BEGIN GENERATED ENUMS
+// Generated by MessageSchemaGenerator from
+// rune-tools/schema/spellcast_messages.json, do not edit.
+
+
 /**
  * @enum {number} Game difficulty settings.
  * @export
@@ -105,6 +110,7 @@ cast.games.spellcast.messages.GameStateId = {
   ENEMY_VICTORY: 7,
   PAUSED: 8
 };
+// END GENERATED ENUMS
 
 
 
@@ -144,6 +150,12 @@ cast.games.spellcast.messages.PlayerReadyData = function() {
    * @type {number}
    */
   this.avatarIndex = 0;
+
+  /**
+   * True if the sender can send its spells in #SpellMessage.packedSpells.
+   * @type {boolean}
+   */
+  this.supportsPackedSpells = false;
 };
 
 
@@ -183,6 +195,13 @@ cast.games.spellcast.messages.PlayerMessage = function() {
    * @type {number}
    */
   this.castSpellsDurationMillis = 0;
+
+  /**
+   * True if the player may send its spells in #SpellMessage.packedSpells.
+   * Only set for senders that said they support it in #PlayerReadyData.
+   * @type {boolean}
+   */
+  this.packedSpells = false;
 };
 
 
@@ -225,4 +244,40 @@ cast.games.spellcast.messages.SpellMessage = function() {
    * @type {!Array.<!cast.games.spellcast.messages.Spell>}
    */
   this.spells = [];
+
+  /**
+   * The spells packed by senders that support it, one byte per spell encoded
+   * in base64. Use #unpackSpells to read them. Left out of turns without
+   * spells, so check its type rather than its truthiness.
+   * @type {string|undefined}
+   */
+  this.packedSpells = undefined;
+};
+
+
+/**
+ * Decodes the spells of a message sent with
+ * #PlayerMessage.packedSpells. Each byte holds the spell type in bits 5-6, the
+ * element in bits 2-4 and the accuracy in bits 0-1.
+ * @param {string} packedSpells The base64 packed spells.
+ * @return {!Array.<!cast.games.spellcast.messages.Spell>}
+ */
+cast.games.spellcast.messages.SpellMessage.unpackSpells =
+    function(packedSpells) {
+  var bytes = window.atob(packedSpells);
+  var spells = [];
+  for (var i = 0; i < bytes.length; i++) {
+    var packedSpell = bytes.charCodeAt(i);
+    var spell = new cast.games.spellcast.messages.Spell();
+    spell.spellType = /** @type {cast.games.spellcast.messages.SpellType} */ (
+        (packedSpell >> 5) & 0x3);
+    spell.spellElement =
+        /** @type {cast.games.spellcast.messages.SpellElement} */ (
+            (packedSpell >> 2) & 0x7);
+    spell.spellAccuracy =
+        /** @type {cast.games.spellcast.messages.SpellAccuracy} */ (
+            packedSpell & 0x3);
+    spells.push(spell);
+  }
+  return spells;
 };
@@ -18,6 +18,7 @@ goog.require('cast.games.spellcast.ActionParser');
 goog.require('cast.games.spellcast.GameConstants');
 goog.require('cast.games.spellcast.State');
 goog.require('cast.games.spellcast.messages.GameStateId');
+goog.require('cast.games.spellcast.messages.SpellMessage');
 
 
 
@@ -209,8 +210,15 @@ cast.games.spellcast.states.PlayerActionPhase.prototype.onGameMessage_ =
     throw Error('No enemy defined during player action phase.');
   }
 
+  // Senders that support it pack their spells, see
+  // cast.games.spellcast.messages.PlayerMessage.packedSpells. Packed turns
+  // without spells carry neither field.
+  var spells = typeof spellMessage.packedSpells === 'string' ?
+      cast.games.spellcast.messages.SpellMessage.unpackSpells(
+          spellMessage.packedSpells) :
+      spellMessage.spells || [];
   var actions = cast.games.spellcast.ActionParser.parse(
-      this.actionManager_, caster, enemy, spellMessage.spells);
+      this.actionManager_, caster, enemy, spells);
   this.actions_[playerId] = actions;
   if (this.receivedPlayerIds_.indexOf(playerId) == -1) {
     this.receivedPlayerIds_.push(playerId);
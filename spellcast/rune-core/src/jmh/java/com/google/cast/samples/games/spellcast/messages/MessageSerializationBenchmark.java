@@ -0,0 +1,114 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.messages;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks serializing the end of turn spell message with {@link JsonSink} against building an
+ * org.json tree and converting it to a string, as CastSpellsMessage.toJSON does. Both produce the
+ * payload that cast.games.spellcast.messages.SpellMessage expects. The message classes themselves
+ * depend on Android, so this writes the same keys and values directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageSerializationBenchmark {
+    private static final String KEY_SPELLS = "spells";
+    private static final String KEY_SPELL_TYPE = "spellType";
+    private static final String KEY_SPELL_ELEMENT = "spellElement";
+    private static final String KEY_SPELL_ACCURACY = "spellAccuracy";
+
+    @Param({"4", "16"})
+    public int spellCount;
+
+    private int[] mSpellTypes;
+    private int[] mSpellElements;
+    private int[] mSpellAccuracies;
+    private final JsonSink mSink = new JsonSink();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        mSpellTypes = new int[spellCount];
+        mSpellElements = new int[spellCount];
+        mSpellAccuracies = new int[spellCount];
+        for (int i = 0; i < spellCount; ++i) {
+            mSpellTypes[i] = 1 + random.nextInt(3);
+            mSpellElements[i] = 1 + random.nextInt(5);
+            mSpellAccuracies[i] = 1 + random.nextInt(3);
+        }
+    }
+
+    @Benchmark
+    public String jsonObjectTree() throws JSONException {
+        JSONObject serialized = new JSONObject();
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < spellCount; ++i) {
+            JSONObject spell = new JSONObject();
+            spell.put(KEY_SPELL_TYPE, mSpellTypes[i]);
+            spell.put(KEY_SPELL_ELEMENT, mSpellElements[i]);
+            spell.put(KEY_SPELL_ACCURACY, mSpellAccuracies[i]);
+            array.put(spell);
+        }
+        serialized.put(KEY_SPELLS, array);
+        return serialized.toString();
+    }
+
+    @Benchmark
+    public String jsonSink() {
+        writeSpells(mSink.reset());
+        return mSink.toString();
+    }
+
+    /**
+     * Measures the sink without creating the final string, for callers that reuse the buffer.
+     */
+    @Benchmark
+    public int jsonSinkNoString() {
+        writeSpells(mSink.reset());
+        return mSink.length();
+    }
+
+    private void writeSpells(JsonSink sink) {
+        sink.beginObject().name(KEY_SPELLS).beginArray();
+        for (int i = 0; i < spellCount; ++i) {
+            sink.beginObject()
+                    .name(KEY_SPELL_TYPE).value(mSpellTypes[i])
+                    .name(KEY_SPELL_ELEMENT).value(mSpellElements[i])
+                    .name(KEY_SPELL_ACCURACY).value(mSpellAccuracies[i])
+                    .endObject();
+        }
+        sink.endArray().endObject();
+    }
+}
@@ -0,0 +1,194 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.runes;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the drawings used by the benchmarks. Paths are relative to the rune-core directory, which
+ * is the working directory of the jmh task.
+ */
+final class BenchmarkDrawings {
+    static final File RUNE_ASSETS = new File("../android-sender/assets/runes");
+    static final File TEMPLATE_PACK = new File(RUNE_ASSETS, "scoring_templates.pack");
+    static final File TEMPLATE_DIRECTORY = new File(RUNE_ASSETS, "scoring_templates");
+
+    // The brush is 30dp on a view that is about 10 brushes wide on most phones.
+    private static final float BRUSH_SIZE_FRACTION = 0.1f;
+    // Touch samples arrive a few pixels apart when drawing at a normal speed.
+    private static final float SAMPLE_SPACING = 6.0f;
+    private static final int OPAQUE_WHITE = 0xFFFFFFFF;
+
+    private BenchmarkDrawings() {
+    }
+
+    static ByteBuffer readTemplatePack() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(TEMPLATE_PACK, "r");
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+            return ByteBuffer.wrap(bytes);
+        } finally {
+            file.close();
+        }
+    }
+
+    static ScoringTemplate readTemplate(String name) throws IOException {
+        ScoringTemplate template = RuneTemplatePackFormat.read(readTemplatePack()).get(name);
+        if (template == null) {
+            throw new IOException("No template " + name + " in " + TEMPLATE_PACK);
+        }
+        return template;
+    }
+
+    static float getBrushSize(int viewSize) {
+        return viewSize * BRUSH_SIZE_FRACTION;
+    }
+
+    /**
+     * @return Smooth random strokes across a viewSize x viewSize view, the same for every run.
+     */
+    static List<float[]> getSyntheticStrokes(int viewSize, int strokeCount) {
+        Random random = new Random(viewSize);
+        List<float[]> strokes = new ArrayList<>();
+        int pointsPerStroke = (int) (viewSize / SAMPLE_SPACING);
+        for (int i = 0; i < strokeCount; ++i) {
+            float[] stroke = new float[pointsPerStroke * 2];
+            float x = viewSize * (0.25f + random.nextFloat() / 2);
+            float y = viewSize * (0.25f + random.nextFloat() / 2);
+            double angle = random.nextDouble() * 2 * Math.PI;
+            for (int j = 0; j < pointsPerStroke; ++j) {
+                angle += (random.nextDouble() - 0.5) * 0.5;
+                x = clamp(x + (float) Math.cos(angle) * SAMPLE_SPACING, viewSize);
+                y = clamp(y + (float) Math.sin(angle) * SAMPLE_SPACING, viewSize);
+                stroke[j * 2] = x;
+                stroke[j * 2 + 1] = y;
+            }
+            strokes.add(stroke);
+        }
+        return strokes;
+    }
+
+    /**
+     * @return Strokes tracing every run of black cells of the template, scaled to the view, which
+     *         is what a player tracing the rune perfectly would cover.
+     */
+    static List<float[]> getTracedStrokes(ScoringTemplate template, int viewSize) {
+        float cellSize = (float) viewSize / ScoringTemplate.TEMPLATE_SIZE;
+        long[] blackRows = template.getBlackRows();
+        List<float[]> strokes = new ArrayList<>();
+        for (int i = 0; i < blackRows.length; ++i) {
+            long row = blackRows[i];
+            while (row != 0) {
+                int first = Long.numberOfTrailingZeros(row);
+                int last = Long.numberOfTrailingZeros(~(row >>> first)) + first - 1;
+                row &= last == 63 ? 0 : -1L << (last + 1);
+
+                float y = (i + 0.5f) * cellSize;
+                float startX = (first + 0.5f) * cellSize;
+                float endX = (last + 0.5f) * cellSize;
+                int points = Math.max(2, (int) ((endX - startX) / SAMPLE_SPACING) + 1);
+                float[] stroke = new float[points * 2];
+                for (int j = 0; j < points; ++j) {
+                    stroke[j * 2] = startX + (endX - startX) * j / (points - 1);
+                    stroke[j * 2 + 1] = y;
+                }
+                strokes.add(stroke);
+            }
+        }
+        return strokes;
+    }
+
+    /**
+     * @return The strokes drawn into an ARGB buffer the way the view draws them, as round brush
+     *         dabs of the given size.
+     */
+    static int[] render(List<float[]> strokes, int viewSize, float brushSize) {
+        int[] pixels = new int[viewSize * viewSize];
+        float radius = brushSize / 2;
+        for (float[] stroke : strokes) {
+            for (int i = 0; i < stroke.length; i += 2) {
+                float x0 = stroke[Math.max(0, i - 2)];
+                float y0 = stroke[Math.max(1, i - 1)];
+                float x1 = stroke[i];
+                float y1 = stroke[i + 1];
+                int steps = Math.max(1, (int) Math.ceil(Math.hypot(x1 - x0, y1 - y0)));
+                for (int step = 1; step <= steps; ++step) {
+                    float t = (float) step / steps;
+                    fillDisc(pixels, viewSize, x0 + (x1 - x0) * t, y0 + (y1 - y0) * t, radius);
+                }
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * @return The strokes rasterized into a scoring grid, the way the view does it while drawing.
+     */
+    static long[] rasterize(List<float[]> strokes, int viewSize, float brushSize) {
+        DrawnRuneMask mask = new DrawnRuneMask();
+        mask.setSize(viewSize, viewSize, brushSize);
+        for (float[] stroke : strokes) {
+            mask.addPoint(stroke[0], stroke[1]);
+            for (int i = 2; i < stroke.length; i += 2) {
+                mask.addSegment(stroke[i - 2], stroke[i - 1], stroke[i], stroke[i + 1]);
+            }
+        }
+        return mask.getRows().clone();
+    }
+
+    /**
+     * @return The black cells of the template as a grid of 0 and 1, like {@link
+     *         RunePixels#getPixelData}.
+     */
+    static byte[][] getBlackCellData(ScoringTemplate template) {
+        long[] blackRows = template.getBlackRows();
+        byte[][] data = new byte[blackRows.length][blackRows.length];
+        for (int i = 0; i < blackRows.length; ++i) {
+            Arrays.fill(data[i], (byte) 0);
+            for (int j = 0; j < blackRows.length; ++j) {
+                data[i][j] = (byte) ((blackRows[i] >>> j) & 1);
+            }
+        }
+        return data;
+    }
+
+    private static void fillDisc(int[] pixels, int viewSize, float x, float y, float radius) {
+        int left = Math.max(0, (int) (x - radius));
+        int right = Math.min(viewSize - 1, (int) (x + radius));
+        int top = Math.max(0, (int) (y - radius));
+        int bottom = Math.min(viewSize - 1, (int) (y + radius));
+        float radiusSquared = radius * radius;
+        for (int row = top; row <= bottom; ++row) {
+            for (int column = left; column <= right; ++column) {
+                float dx = column + 0.5f - x;
+                float dy = row + 0.5f - y;
+                if (dx * dx + dy * dy <= radiusSquared) {
+                    pixels[row * viewSize + column] = OPAQUE_WHITE;
+                }
+            }
+        }
+    }
+
+    private static float clamp(float value, int viewSize) {
+        return Math.max(0, Math.min(viewSize - 1, value));
+    }
+}
@@ -0,0 +1,125 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.runes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks scoring a drawing of a rune, from the drawing surface to the final score, at the view
+ * sizes the sender runs at on small, medium and large screens.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuneScoringBenchmark {
+    private static final int SYNTHETIC_STROKE_COUNT = 3;
+
+    @Param({"256", "512", "1024"})
+    public int viewSize;
+
+    // "synthetic" drawings are random strokes, "traced" drawings cover the rune perfectly.
+    @Param({"synthetic", "traced"})
+    public String drawing;
+
+    @Param({"fire_1.png"})
+    public String template;
+
+    private ScoringTemplate mTemplate;
+    private byte[][] mTemplateData;
+    private List<float[]> mStrokes;
+    private float mBrushSize;
+    private int[] mPixels;
+    private byte[][] mPixelData;
+    private long[] mPixelMask;
+    private PointCloudMatcher mMatcher;
+    private float[] mTemplateCloud;
+
+    @Setup
+    public void setUp() throws IOException {
+        mTemplate = BenchmarkDrawings.readTemplate(template);
+        mTemplateData = BenchmarkDrawings.getBlackCellData(mTemplate);
+        if ("traced".equals(drawing)) {
+            mStrokes = BenchmarkDrawings.getTracedStrokes(mTemplate, viewSize);
+        } else {
+            mStrokes = BenchmarkDrawings.getSyntheticStrokes(viewSize, SYNTHETIC_STROKE_COUNT);
+        }
+        mBrushSize = BenchmarkDrawings.getBrushSize(viewSize);
+        mPixels = BenchmarkDrawings.render(mStrokes, viewSize, mBrushSize);
+        mPixelData = RunePixels.getPixelData(mPixels, viewSize, viewSize);
+        mPixelMask = BenchmarkDrawings.rasterize(mStrokes, viewSize, mBrushSize);
+        mMatcher = new PointCloudMatcher(32);
+        mTemplateCloud = mMatcher.getTemplateCloud(mTemplate);
+    }
+
+    @Benchmark
+    public byte[][] getPixelData() {
+        return RunePixels.getPixelData(mPixels, viewSize, viewSize);
+    }
+
+    @Benchmark
+    public long[] getPixelMask() {
+        return RunePixels.getPixelMask(mPixels, viewSize, viewSize);
+    }
+
+    @Benchmark
+    public float comparePixelData() {
+        return RunePixels.comparePixelData(mPixelData, mTemplateData);
+    }
+
+    /**
+     * Scoring a drawing that was rasterized while it was drawn.
+     */
+    @Benchmark
+    public float getRuneScore() {
+        return mTemplate.getScorePercentage(mPixelMask);
+    }
+
+    /**
+     * Scoring a drawing by reading back the drawing surface first.
+     */
+    @Benchmark
+    public float getRuneScoreFromPixels() {
+        return mTemplate.getScorePercentage(RunePixels.getPixelMask(mPixels, viewSize, viewSize));
+    }
+
+    /**
+     * The cost of rasterizing every touch sample of the drawing into the scoring grid.
+     */
+    @Benchmark
+    public long[] rasterizeStrokes() {
+        return BenchmarkDrawings.rasterize(mStrokes, viewSize, mBrushSize);
+    }
+
+    @Benchmark
+    public float getPointCloudScore() {
+        return mMatcher.getAverageDistance(mMatcher.getStrokeCloud(mStrokes), mTemplateCloud);
+    }
+}
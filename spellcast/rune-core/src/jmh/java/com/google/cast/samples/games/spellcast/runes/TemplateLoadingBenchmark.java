@@ -0,0 +1,68 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.runes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Benchmarks loading the scoring templates from the precompiled pack against building them from
+ * decoded template images.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateLoadingBenchmark {
+    private ByteBuffer mTemplatePack;
+    private int[] mTemplatePixels;
+
+    @Setup
+    public void setUp() throws IOException {
+        mTemplatePack = BenchmarkDrawings.readTemplatePack();
+        BufferedImage image = ImageIO.read(
+                new File(BenchmarkDrawings.TEMPLATE_DIRECTORY, "fire_1.png"));
+        int size = ScoringTemplate.TEMPLATE_SIZE;
+        mTemplatePixels = image.getRGB(0, 0, size, size, null, 0, size);
+    }
+
+    @Benchmark
+    public Map<String, ScoringTemplate> readTemplatePack() throws IOException {
+        return RuneTemplatePackFormat.read(mTemplatePack.duplicate());
+    }
+
+    @Benchmark
+    public ScoringTemplate templateFromPixels() {
+        return ScoringTemplate.fromPixels(mTemplatePixels);
+    }
+}
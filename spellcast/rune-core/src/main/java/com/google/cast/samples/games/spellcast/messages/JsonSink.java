@@ -0,0 +1,167 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.messages;
+
+/**
+ * Writes JSON straight into a reusable StringBuilder, without building a tree of objects and
+ * boxed values first. Callers are responsible for nesting objects and arrays correctly and for
+ * calling {@link #name} before every value in an object.
+ *
+ * <p>This is plain Java so it can be shared with the sender and benchmarked on a desktop JVM.
+ */
+public final class JsonSink {
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder mBuilder;
+    // True if the next name or value follows another one and needs a separator.
+    private boolean mNeedsSeparator = false;
+
+    public JsonSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public JsonSink(int capacity) {
+        mBuilder = new StringBuilder(capacity);
+    }
+
+    /**
+     * Discards everything written so far, keeping the allocated buffer.
+     */
+    public JsonSink reset() {
+        mBuilder.setLength(0);
+        mNeedsSeparator = false;
+        return this;
+    }
+
+    public JsonSink beginObject() {
+        separate();
+        mBuilder.append('{');
+        mNeedsSeparator = false;
+        return this;
+    }
+
+    public JsonSink endObject() {
+        mBuilder.append('}');
+        mNeedsSeparator = true;
+        return this;
+    }
+
+    public JsonSink beginArray() {
+        separate();
+        mBuilder.append('[');
+        mNeedsSeparator = false;
+        return this;
+    }
+
+    public JsonSink endArray() {
+        mBuilder.append(']');
+        mNeedsSeparator = true;
+        return this;
+    }
+
+    public JsonSink name(String name) {
+        separate();
+        appendString(name);
+        mBuilder.append(':');
+        mNeedsSeparator = false;
+        return this;
+    }
+
+    public JsonSink value(int value) {
+        separate();
+        mBuilder.append(value);
+        mNeedsSeparator = true;
+        return this;
+    }
+
+    public JsonSink value(boolean value) {
+        separate();
+        mBuilder.append(value);
+        mNeedsSeparator = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or null.
+     */
+    public JsonSink value(String value) {
+        separate();
+        if (value == null) {
+            mBuilder.append("null");
+        } else {
+            appendString(value);
+        }
+        mNeedsSeparator = true;
+        return this;
+    }
+
+    public int length() {
+        return mBuilder.length();
+    }
+
+    /**
+     * @return The JSON written since the last reset.
+     */
+    @Override
+    public String toString() {
+        return mBuilder.toString();
+    }
+
+    private void separate() {
+        if (mNeedsSeparator) {
+            mBuilder.append(',');
+        }
+    }
+
+    private void appendString(String value) {
+        mBuilder.append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    mBuilder.append('\\').append(c);
+                    break;
+                case '\b':
+                    mBuilder.append("\\b");
+                    break;
+                case '\f':
+                    mBuilder.append("\\f");
+                    break;
+                case '\n':
+                    mBuilder.append("\\n");
+                    break;
+                case '\r':
+                    mBuilder.append("\\r");
+                    break;
+                case '\t':
+                    mBuilder.append("\\t");
+                    break;
+                default:
+                    // Line and paragraph separators are valid JSON but not valid JavaScript.
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        mBuilder.append("\\u")
+                                .append(HEX_DIGITS[(c >> 12) & 0xF])
+                                .append(HEX_DIGITS[(c >> 8) & 0xF])
+                                .append(HEX_DIGITS[(c >> 4) & 0xF])
+                                .append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        mBuilder.append(c);
+                    }
+            }
+        }
+        mBuilder.append('"');
+    }
+}
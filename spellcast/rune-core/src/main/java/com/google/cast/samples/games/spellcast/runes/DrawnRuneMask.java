@@ -0,0 +1,146 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.runes;
+
+/**
+ * Rasterizes touch samples straight into a RESOLUTION x RESOLUTION grid of cells, using the same
+ * one-long-per-row layout as {@link RunePixels#getPixelMask}. A cell is marked as soon as the brush
+ * touches it, which is what the bitmap readback reports for an anti-aliased stroke, so scoring
+ * never needs to copy the drawing surface.
+ *
+ * <p>When a scoring template is set, the score of the drawing against it is kept up to date as
+ * cells are marked. Only newly marked cells are scored, so each touch sample costs time
+ * proportional to the length of its segment and the score is always ready.
+ */
+public class DrawnRuneMask {
+
+    private static final int RESOLUTION = RunePixels.RESOLUTION;
+
+    // Anti-aliasing bleeds the stroke roughly one pixel past the brush edge, and any alpha at all
+    // marks a block as filled when reading back the bitmap.
+    private static final float ANTI_ALIAS_MARGIN = 1.0f;
+
+    private final long[] mRows = new long[RESOLUTION];
+
+    private float mCellWidth = 1.0f;
+    private float mCellHeight = 1.0f;
+    private float mBrushRadius = 0.0f;
+    private float mStepSize = 0.5f;
+
+    private ScoringTemplate mScoringTemplate;
+    private int mScore = 0;
+
+    /**
+     * @param width The width in pixels of the view being drawn on.
+     * @param height The height in pixels of the view being drawn on.
+     * @param brushSize The stroke width in pixels of the brush.
+     */
+    public void setSize(int width, int height, float brushSize) {
+        // Match the integer block size used when reading back the bitmap.
+        mCellWidth = Math.max(1, width / RESOLUTION);
+        mCellHeight = Math.max(1, height / RESOLUTION);
+        mBrushRadius = brushSize / 2 + ANTI_ALIAS_MARGIN;
+        mStepSize = Math.min(mCellWidth, mCellHeight) / 2;
+        clear();
+    }
+
+    public void clear() {
+        for (int i = 0; i < RESOLUTION; ++i) {
+            mRows[i] = 0;
+        }
+        mScore = 0;
+    }
+
+    /**
+     * @param scoringTemplate The template to keep the score of the drawing against, or null to stop
+     *            scoring.
+     */
+    public void setScoringTemplate(ScoringTemplate scoringTemplate) {
+        mScoringTemplate = scoringTemplate;
+        mScore = scoringTemplate != null ? scoringTemplate.getScore(mRows) : 0;
+    }
+
+    /**
+     * @return The score of the drawing against the scoring template, see
+     *         {@link ScoringTemplate#getScore}, or 0 if there is no template.
+     */
+    public int getScore() {
+        return mScore;
+    }
+
+    /**
+     * @return The score of the drawing against the scoring template, see
+     *         {@link ScoringTemplate#getScorePercentage}, or 0 if there is no template.
+     */
+    public float getScorePercentage() {
+        if (mScoringTemplate == null) {
+            return 0;
+        }
+        return mScore * 100.0f / mScoringTemplate.getFilledPixelsScore();
+    }
+
+    /**
+     * Marks all the cells covered by a brush dab centered at (x, y).
+     */
+    public void addPoint(float x, float y) {
+        float radius = mBrushRadius;
+        int firstRow = Math.max(0, (int) Math.floor((y - radius) / mCellHeight));
+        int lastRow = Math.min(RESOLUTION - 1, (int) Math.floor((y + radius) / mCellHeight));
+        for (int row = firstRow; row <= lastRow; ++row) {
+            float top = row * mCellHeight;
+            float bottom = top + mCellHeight;
+            float dy = y < top ? top - y : (y > bottom ? y - bottom : 0);
+            if (dy > radius) {
+                continue;
+            }
+            float halfWidth = (float) Math.sqrt(radius * radius - dy * dy);
+            int firstColumn = Math.max(0, (int) Math.floor((x - halfWidth) / mCellWidth));
+            int lastColumn = Math.min(RESOLUTION - 1,
+                    (int) Math.floor((x + halfWidth) / mCellWidth));
+            if (firstColumn > lastColumn) {
+                continue;
+            }
+            long cells = (-1L >>> (RESOLUTION - 1 - lastColumn)) & (-1L << firstColumn);
+            long newCells = cells & ~mRows[row];
+            if (newCells != 0) {
+                mRows[row] |= newCells;
+                if (mScoringTemplate != null) {
+                    mScore += mScoringTemplate.getRowScore(row, newCells);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks all the cells covered by a brush stroke from (x0, y0) to (x1, y1). The segment is
+     * stamped with brush dabs spaced half a cell apart, so the cost is proportional to its length.
+     */
+    public void addSegment(float x0, float y0, float x1, float y1) {
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        int steps = (int) Math.ceil(length / mStepSize);
+        for (int i = 1; i <= steps; ++i) {
+            float t = (float) i / steps;
+            addPoint(x0 + dx * t, y0 + dy * t);
+        }
+    }
+
+    /**
+     * @return The live mask, one long per row. Callers must not modify it.
+     */
+    public long[] getRows() {
+        return mRows;
+    }
+}
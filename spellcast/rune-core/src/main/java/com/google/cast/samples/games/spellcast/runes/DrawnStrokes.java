@@ -0,0 +1,77 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.runes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the raw touch points of every stroke of a drawing, for scorers that work on points
+ * instead of cells.
+ */
+public class DrawnStrokes {
+
+    private static final int INITIAL_CAPACITY = 128;
+
+    private final ArrayList<float[]> mStrokes = new ArrayList<>();
+    private float[] mCurrentStroke = new float[INITIAL_CAPACITY];
+    private int mCurrentStrokeLength = 0;
+
+    public void clear() {
+        mStrokes.clear();
+        mCurrentStrokeLength = 0;
+    }
+
+    /**
+     * Starts a new stroke at (x, y), ending the current one if there is one.
+     */
+    public void beginStroke(float x, float y) {
+        endStroke();
+        addPoint(x, y);
+    }
+
+    public void addPoint(float x, float y) {
+        if (mCurrentStrokeLength + 2 > mCurrentStroke.length) {
+            mCurrentStroke = Arrays.copyOf(mCurrentStroke, mCurrentStroke.length * 2);
+        }
+        mCurrentStroke[mCurrentStrokeLength++] = x;
+        mCurrentStroke[mCurrentStrokeLength++] = y;
+    }
+
+    public void endStroke() {
+        if (mCurrentStrokeLength > 0) {
+            mStrokes.add(Arrays.copyOf(mCurrentStroke, mCurrentStrokeLength));
+            mCurrentStrokeLength = 0;
+        }
+    }
+
+    /**
+     * @return True if nothing has been drawn, including in the stroke being drawn.
+     */
+    public boolean isEmpty() {
+        return mStrokes.isEmpty() && mCurrentStrokeLength == 0;
+    }
+
+    /**
+     * @return Every stroke, including the one being drawn, stored as x0, y0, x1, y1...
+     */
+    public List<float[]> getStrokes() {
+        ArrayList<float[]> strokes = new ArrayList<>(mStrokes);
+        if (mCurrentStrokeLength > 0) {
+            strokes.add(Arrays.copyOf(mCurrentStroke, mCurrentStrokeLength));
+        }
+        return strokes;
+    }
+}
@@ -0,0 +1,267 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.runes;
+
+import java.util.List;
+
+/**
+ * Point-cloud matching in the style of the $P recognizer. Drawings and rune templates are reduced
+ * to clouds of a fixed number of points, normalized for scale and position, and then matched
+ * greedily point to point.
+ */
+public class PointCloudMatcher {
+    private final int mNumPoints;
+    // How many start points to skip between greedy matches, as suggested by $P.
+    private final int mStartStep;
+    private final float mWeightSum;
+
+    /**
+     * @param numPoints How many points drawings and templates are resampled to.
+     */
+    public PointCloudMatcher(int numPoints) {
+        if (numPoints < 2) {
+            throw new IllegalArgumentException("At least 2 points are needed.");
+        }
+        mNumPoints = numPoints;
+        mStartStep = Math.max(1, (int) Math.floor(Math.sqrt(numPoints)));
+        // Sum of the weights used in getCloudDistance.
+        mWeightSum = (numPoints + 1) / 2.0f;
+    }
+
+    public int getNumPoints() {
+        return mNumPoints;
+    }
+
+    /**
+     * @param strokes The points of every stroke, stored as x0, y0, x1, y1...
+     * @return The normalized cloud of the strokes, or null if there are no points.
+     */
+    public float[] getStrokeCloud(List<float[]> strokes) {
+        float[] cloud = resample(strokes, mNumPoints);
+        if (cloud != null) {
+            normalize(cloud);
+        }
+        return cloud;
+    }
+
+    /**
+     * @param template The scoring template of a rune.
+     * @return The normalized cloud of the black cells of the template, or null if it has none.
+     */
+    public float[] getTemplateCloud(ScoringTemplate template) {
+        float[] cloud = sampleTemplate(template, mNumPoints);
+        if (cloud != null) {
+            normalize(cloud);
+        }
+        return cloud;
+    }
+
+    /**
+     * @param cloud1 A normalized cloud with getNumPoints() points.
+     * @param cloud2 Another normalized cloud with getNumPoints() points.
+     * @return The weighted average distance between matched points, relative to the size of the
+     *         clouds. Identical clouds are 0 apart.
+     */
+    public float getAverageDistance(float[] cloud1, float[] cloud2) {
+        return getGreedyCloudMatch(cloud1, cloud2) / mWeightSum;
+    }
+
+    /**
+     * Picks numPoints cells spread evenly across the black cells of the template.
+     *
+     * @return The centers of the picked cells stored as x0, y0, x1, y1..., or null if the template
+     *         has no black cells.
+     */
+    private static float[] sampleTemplate(ScoringTemplate template, int numPoints) {
+        long[] blackRows = template.getBlackRows();
+        int cellCount = 0;
+        for (long row : blackRows) {
+            cellCount += Long.bitCount(row);
+        }
+        if (cellCount == 0) {
+            return null;
+        }
+
+        float[] cloud = new float[numPoints * 2];
+        int cellIndex = 0;
+        int pointIndex = 0;
+        for (int i = 0; i < blackRows.length && pointIndex < numPoints; ++i) {
+            long row = blackRows[i];
+            while (row != 0 && pointIndex < numPoints) {
+                int column = Long.numberOfTrailingZeros(row);
+                row &= row - 1;
+                // Emit this cell as many times as evenly spaced picks land on it.
+                while (pointIndex < numPoints
+                        && (long) pointIndex * cellCount / numPoints == cellIndex) {
+                    cloud[pointIndex * 2] = column + 0.5f;
+                    cloud[pointIndex * 2 + 1] = i + 0.5f;
+                    pointIndex++;
+                }
+                cellIndex++;
+            }
+        }
+        return cloud;
+    }
+
+    /**
+     * Resamples the strokes to numPoints points spaced evenly along their combined length. The gaps
+     * between strokes do not count towards the length.
+     *
+     * @return The resampled points stored as x0, y0, x1, y1..., or null if there are no points.
+     */
+    private static float[] resample(List<float[]> strokes, int numPoints) {
+        float pathLength = 0;
+        float[] firstStroke = null;
+        for (float[] stroke : strokes) {
+            if (stroke.length < 2) {
+                continue;
+            }
+            if (firstStroke == null) {
+                firstStroke = stroke;
+            }
+            for (int i = 2; i < stroke.length; i += 2) {
+                pathLength += distance(stroke[i - 2], stroke[i - 1], stroke[i], stroke[i + 1]);
+            }
+        }
+        if (firstStroke == null) {
+            return null;
+        }
+
+        float[] points = new float[numPoints * 2];
+        points[0] = firstStroke[0];
+        points[1] = firstStroke[1];
+        int count = 1;
+        float interval = pathLength / (numPoints - 1);
+        float accumulated = 0;
+        float lastX = firstStroke[0];
+        float lastY = firstStroke[1];
+        for (float[] stroke : strokes) {
+            if (stroke.length < 2 || interval <= 0) {
+                continue;
+            }
+            float previousX = stroke[0];
+            float previousY = stroke[1];
+            for (int i = 2; i < stroke.length && count < numPoints; i += 2) {
+                float x = stroke[i];
+                float y = stroke[i + 1];
+                float segmentLength = distance(previousX, previousY, x, y);
+                while (segmentLength > 0 && accumulated + segmentLength >= interval
+                        && count < numPoints) {
+                    float t = (interval - accumulated) / segmentLength;
+                    previousX += t * (x - previousX);
+                    previousY += t * (y - previousY);
+                    points[count * 2] = previousX;
+                    points[count * 2 + 1] = previousY;
+                    count++;
+                    accumulated = 0;
+                    segmentLength = distance(previousX, previousY, x, y);
+                }
+                accumulated += segmentLength;
+                previousX = x;
+                previousY = y;
+            }
+            lastX = stroke[stroke.length - 2];
+            lastY = stroke[stroke.length - 1];
+        }
+        // Rounding can leave the last few points unset, so pad with the end of the drawing.
+        while (count < numPoints) {
+            points[count * 2] = lastX;
+            points[count * 2 + 1] = lastY;
+            count++;
+        }
+        return points;
+    }
+
+    /**
+     * Scales the cloud uniformly so its largest side is 1, and moves its centroid to the origin.
+     */
+    private static void normalize(float[] cloud) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        float sumX = 0;
+        float sumY = 0;
+        for (int i = 0; i < cloud.length; i += 2) {
+            minX = Math.min(minX, cloud[i]);
+            maxX = Math.max(maxX, cloud[i]);
+            minY = Math.min(minY, cloud[i + 1]);
+            maxY = Math.max(maxY, cloud[i + 1]);
+            sumX += cloud[i];
+            sumY += cloud[i + 1];
+        }
+        int count = cloud.length / 2;
+        float centroidX = sumX / count;
+        float centroidY = sumY / count;
+        float size = Math.max(maxX - minX, maxY - minY);
+        float scale = size > 0 ? 1.0f / size : 1.0f;
+        for (int i = 0; i < cloud.length; i += 2) {
+            cloud[i] = (cloud[i] - centroidX) * scale;
+            cloud[i + 1] = (cloud[i + 1] - centroidY) * scale;
+        }
+    }
+
+    /**
+     * @return The smallest weighted distance between the clouds over a spread of start points,
+     *         trying both matching directions.
+     */
+    private float getGreedyCloudMatch(float[] cloud1, float[] cloud2) {
+        boolean[] matched = new boolean[mNumPoints];
+        float minDistance = Float.MAX_VALUE;
+        for (int start = 0; start < mNumPoints; start += mStartStep) {
+            minDistance = Math.min(minDistance, getCloudDistance(cloud1, cloud2, start, matched));
+            minDistance = Math.min(minDistance, getCloudDistance(cloud2, cloud1, start, matched));
+        }
+        return minDistance;
+    }
+
+    /**
+     * Matches every point of cloud1, beginning at start, with the closest point of cloud2 that is
+     * not matched yet. Earlier matches are more reliable, so they are weighted higher.
+     */
+    private float getCloudDistance(float[] cloud1, float[] cloud2, int start, boolean[] matched) {
+        int numPoints = mNumPoints;
+        for (int i = 0; i < numPoints; ++i) {
+            matched[i] = false;
+        }
+        float sum = 0;
+        int i = start;
+        do {
+            float x = cloud1[i * 2];
+            float y = cloud1[i * 2 + 1];
+            int closest = -1;
+            float closestDistance = Float.MAX_VALUE;
+            for (int j = 0; j < numPoints; ++j) {
+                if (!matched[j]) {
+                    float distance = distance(x, y, cloud2[j * 2], cloud2[j * 2 + 1]);
+                    if (distance < closestDistance) {
+                        closestDistance = distance;
+                        closest = j;
+                    }
+                }
+            }
+            matched[closest] = true;
+            float weight = 1.0f - (float) ((i - start + numPoints) % numPoints) / numPoints;
+            sum += weight * closestDistance;
+            i = (i + 1) % numPoints;
+        } while (i != start);
+        return sum;
+    }
+
+    private static float distance(float x0, float y0, float x1, float y1) {
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
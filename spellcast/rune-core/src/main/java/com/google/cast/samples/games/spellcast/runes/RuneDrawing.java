@@ -0,0 +1,58 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.runes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of a rune drawn by the player, handed to a {@link RuneScorer}. It holds both
+ * the cells the player drew on and the raw touch points of every stroke, so each scorer can use
+ * whichever representation suits it.
+ */
+public class RuneDrawing {
+    private final long[] mCellRows;
+    private final List<float[]> mStrokes;
+
+    /**
+     * @param cellRows Bit mask of the cells the player drew on, one long per row. It is copied.
+     * @param strokes The points of every stroke in view coordinates, stored as x0, y0, x1, y1...
+     *            Neither the list nor the arrays may be modified afterwards.
+     */
+    public RuneDrawing(long[] cellRows, List<float[]> strokes) {
+        mCellRows = cellRows.clone();
+        mStrokes = Collections.unmodifiableList(new ArrayList<>(strokes));
+    }
+
+    /**
+     * @return Bit mask of the cells the player drew on, one long per row. Callers must not modify
+     *         it.
+     */
+    public long[] getCellRows() {
+        return mCellRows;
+    }
+
+    /**
+     * @return The points of every stroke, stored as x0, y0, x1, y1... Callers must not modify
+     *         them.
+     */
+    public List<float[]> getStrokes() {
+        return mStrokes;
+    }
+
+    public int getStrokeCount() {
+        return mStrokes.size();
+    }
+}
@@ -0,0 +1,116 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.runes;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes the binary pack holding every rune scoring template. The pack is built by the
+ * rune-tools RuneTemplatePacker and memory mapped by the sender at runtime.
+ *
+ * <p>The pack is big-endian and laid out as follows:
+ * <pre>
+ *   int    magic ('RUNE')
+ *   int    format version
+ *   int    template size (rows and columns per template)
+ *   int    number of templates
+ *   for each template:
+ *     short  length of the template file name in UTF-8 bytes
+ *     byte[] template file name
+ *     long[] black plane, one long per row
+ *     long[] dark gray plane, one long per row
+ *     long[] white plane, one long per row
+ * </pre>
+ * Bit {@code j} of row {@code i} is the cell at row {@code i} and column {@code j}. Light gray
+ * cells are worth no points, so they are not stored.
+ */
+public class RuneTemplatePackFormat {
+    public static final int MAGIC = 0x52554E45;
+    public static final int VERSION = 1;
+
+    private static final int TEMPLATE_SIZE = ScoringTemplate.TEMPLATE_SIZE;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * @param buffer A buffer positioned at the start of a pack. It must be big-endian.
+     * @return The templates in the pack keyed by template file name, in pack order.
+     * @throws IOException If the pack has the wrong format or is truncated.
+     */
+    public static Map<String, ScoringTemplate> read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getInt() != TEMPLATE_SIZE) {
+                throw new IOException("Rune template pack has the wrong format, please rebuild it.");
+            }
+
+            Map<String, ScoringTemplate> templates = new LinkedHashMap<>();
+            int templateCount = buffer.getInt();
+            for (int i = 0; i < templateCount; ++i) {
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                long[] blackRows = readPlane(buffer);
+                long[] darkGrayRows = readPlane(buffer);
+                long[] whiteRows = readPlane(buffer);
+                templates.put(new String(name, UTF_8),
+                        new ScoringTemplate(blackRows, darkGrayRows, whiteRows));
+            }
+            return templates;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Rune template pack is truncated.");
+        }
+    }
+
+    /**
+     * @param out The stream to write the pack to. It is not closed.
+     * @param templates The templates to pack keyed by template file name.
+     */
+    public static void write(OutputStream out, Map<String, ScoringTemplate> templates)
+            throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(MAGIC);
+        dataOut.writeInt(VERSION);
+        dataOut.writeInt(TEMPLATE_SIZE);
+        dataOut.writeInt(templates.size());
+        for (Map.Entry<String, ScoringTemplate> entry : templates.entrySet()) {
+            byte[] name = entry.getKey().getBytes(UTF_8);
+            dataOut.writeShort(name.length);
+            dataOut.write(name);
+            ScoringTemplate template = entry.getValue();
+            writePlane(dataOut, template.getBlackRows());
+            writePlane(dataOut, template.getDarkGrayRows());
+            writePlane(dataOut, template.getWhiteRows());
+        }
+        dataOut.flush();
+    }
+
+    private static long[] readPlane(ByteBuffer buffer) {
+        long[] rows = new long[TEMPLATE_SIZE];
+        buffer.asLongBuffer().get(rows);
+        buffer.position(buffer.position() + rows.length * 8);
+        return rows;
+    }
+
+    private static void writePlane(DataOutputStream out, long[] rows) throws IOException {
+        for (long row : rows) {
+            out.writeLong(row);
+        }
+    }
+}
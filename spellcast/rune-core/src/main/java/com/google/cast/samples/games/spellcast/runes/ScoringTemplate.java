@@ -0,0 +1,187 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.runes;
+
+/**
+ * Bit-packed scoring template for a rune. Each score level that is worth points is stored as its
+ * own bit-plane with one long per row, so bit {@code j} of {@code rows[i]} is the cell at row
+ * {@code i} and column {@code j}. Scoring a drawing is then a few {@link Long#bitCount} calls per
+ * row instead of a walk over every cell.
+ */
+public class ScoringTemplate {
+    // The template is TEMPLATE_SIZE x TEMPLATE_SIZE cells, and every row must fit in one long.
+    public static final int TEMPLATE_SIZE = RunePixels.RESOLUTION;
+
+    public static final byte SCORE_BLACK = 2;
+    public static final byte SCORE_DARK_GRAY = 1;
+    public static final byte SCORE_LIGHT_GRAY = 0;
+    public static final byte SCORE_WHITE = -2;
+
+    // Template images are grayscale, and the red channel of a pixel below these values gives the
+    // score of its cell.
+    private static final int BLACK_THRESHOLD = 18;
+    private static final int DARK_GRAY_THRESHOLD = 110;
+    private static final int LIGHT_GRAY_THRESHOLD = 210;
+
+    private final long[] mBlackRows;
+    private final long[] mDarkGrayRows;
+    private final long[] mWhiteRows;
+    private final int mFilledPixelsScore;
+
+    /**
+     * @param blackRows Bit-plane of the cells worth {@link #SCORE_BLACK} points.
+     * @param darkGrayRows Bit-plane of the cells worth {@link #SCORE_DARK_GRAY} points.
+     * @param whiteRows Bit-plane of the cells worth {@link #SCORE_WHITE} points.
+     */
+    public ScoringTemplate(long[] blackRows, long[] darkGrayRows, long[] whiteRows) {
+        if (blackRows.length != TEMPLATE_SIZE || darkGrayRows.length != TEMPLATE_SIZE
+                || whiteRows.length != TEMPLATE_SIZE) {
+            throw new IllegalArgumentException("Scoring template planes must have "
+                    + TEMPLATE_SIZE + " rows.");
+        }
+        mBlackRows = blackRows;
+        mDarkGrayRows = darkGrayRows;
+        mWhiteRows = whiteRows;
+
+        int filledPixels = 0;
+        for (int i = 0; i < TEMPLATE_SIZE; ++i) {
+            filledPixels += Long.bitCount(blackRows[i]);
+        }
+        mFilledPixelsScore = filledPixels * SCORE_BLACK;
+    }
+
+    /**
+     * @param scoringTemplate A TEMPLATE_SIZE x TEMPLATE_SIZE array holding the score of each cell.
+     * @return The bit-packed version of the template.
+     */
+    public static ScoringTemplate fromScoreGrid(byte[][] scoringTemplate) {
+        long[] blackRows = new long[TEMPLATE_SIZE];
+        long[] darkGrayRows = new long[TEMPLATE_SIZE];
+        long[] whiteRows = new long[TEMPLATE_SIZE];
+        for (int i = 0; i < TEMPLATE_SIZE; ++i) {
+            for (int j = 0; j < TEMPLATE_SIZE; ++j) {
+                long bit = 1L << j;
+                switch (scoringTemplate[i][j]) {
+                    case SCORE_BLACK:
+                        blackRows[i] |= bit;
+                        break;
+                    case SCORE_DARK_GRAY:
+                        darkGrayRows[i] |= bit;
+                        break;
+                    case SCORE_WHITE:
+                        whiteRows[i] |= bit;
+                        break;
+                    default:
+                }
+            }
+        }
+        return new ScoringTemplate(blackRows, darkGrayRows, whiteRows);
+    }
+
+    /**
+     * @param pixels The ARGB pixels of a TEMPLATE_SIZE x TEMPLATE_SIZE template image, row by row.
+     * @return The bit-packed version of the template.
+     */
+    public static ScoringTemplate fromPixels(int[] pixels) {
+        if (pixels.length != TEMPLATE_SIZE * TEMPLATE_SIZE) {
+            throw new IllegalArgumentException("Template images must be " + TEMPLATE_SIZE + "x"
+                    + TEMPLATE_SIZE + ".");
+        }
+        byte[][] scoringTemplate = new byte[TEMPLATE_SIZE][TEMPLATE_SIZE];
+        for (int i = 0; i < TEMPLATE_SIZE; ++i) {
+            for (int j = 0; j < TEMPLATE_SIZE; ++j) {
+                int red = (pixels[i * TEMPLATE_SIZE + j] >> 16) & 0xFF;
+                scoringTemplate[i][j] = getScoreForRed(red);
+            }
+        }
+        return fromScoreGrid(scoringTemplate);
+    }
+
+    /**
+     * @param red The red channel, 0 - 255, of a pixel of a template image.
+     * @return The score of the cell covered by that pixel.
+     */
+    public static byte getScoreForRed(int red) {
+        if (red < BLACK_THRESHOLD) {
+            return SCORE_BLACK;
+        } else if (red < DARK_GRAY_THRESHOLD) {
+            return SCORE_DARK_GRAY;
+        } else if (red < LIGHT_GRAY_THRESHOLD) {
+            return SCORE_LIGHT_GRAY;
+        }
+        return SCORE_WHITE;
+    }
+
+    /**
+     * @return The score a drawing gets when it covers exactly the black cells of the template.
+     */
+    public int getFilledPixelsScore() {
+        return mFilledPixelsScore;
+    }
+
+    /**
+     * @return The bit-plane of the black cells. Callers must not modify it.
+     */
+    public long[] getBlackRows() {
+        return mBlackRows;
+    }
+
+    /**
+     * @return The bit-plane of the dark gray cells. Callers must not modify it.
+     */
+    public long[] getDarkGrayRows() {
+        return mDarkGrayRows;
+    }
+
+    /**
+     * @return The bit-plane of the white cells. Callers must not modify it.
+     */
+    public long[] getWhiteRows() {
+        return mWhiteRows;
+    }
+
+    /**
+     * @param drawnRows Bit mask of the cells the player drew on, one long per row.
+     * @return The sum of the template score of every drawn cell.
+     */
+    public int getScore(long[] drawnRows) {
+        int score = 0;
+        for (int i = 0; i < TEMPLATE_SIZE; ++i) {
+            long drawn = drawnRows[i];
+            score += SCORE_BLACK * Long.bitCount(drawn & mBlackRows[i])
+                    + SCORE_DARK_GRAY * Long.bitCount(drawn & mDarkGrayRows[i])
+                    + SCORE_WHITE * Long.bitCount(drawn & mWhiteRows[i]);
+        }
+        return score;
+    }
+
+    /**
+     * @param row The row of the cells.
+     * @param cells Bit mask of cells in that row.
+     * @return The sum of the template score of those cells.
+     */
+    public int getRowScore(int row, long cells) {
+        return SCORE_BLACK * Long.bitCount(cells & mBlackRows[row])
+                + SCORE_DARK_GRAY * Long.bitCount(cells & mDarkGrayRows[row])
+                + SCORE_WHITE * Long.bitCount(cells & mWhiteRows[row]);
+    }
+
+    /**
+     * @param drawnRows Bit mask of the cells the player drew on, one long per row.
+     * @return The score of the drawing as a percentage of {@link #getFilledPixelsScore()}.
+     */
+    public float getScorePercentage(long[] drawnRows) {
+        return getScore(drawnRows) * 100.0f / mFilledPixelsScore;
+    }
+}
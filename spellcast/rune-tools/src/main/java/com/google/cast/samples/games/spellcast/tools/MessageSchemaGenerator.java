@@ -0,0 +1,221 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.tools;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Build-time tool that generates the message ids and keys shared by the sender and the receiver
+ * from one schema, so they cannot drift apart. It writes MessageSchema.java for the sender, with
+ * array indexed tables to decode and encode enum ids, and replaces the generated enum section of
+ * the receiver's spellcast_messages.js.
+ *
+ * <p>Usage:
+ * {@code MessageSchemaGenerator <schema file> <MessageSchema.java> <spellcast_messages.js>}
+ */
+public class MessageSchemaGenerator {
+    private static final String JAVA_PACKAGE = "com.google.cast.samples.games.spellcast.messages";
+    private static final String JS_NAMESPACE = "cast.games.spellcast.messages.";
+    private static final String JS_BEGIN_MARKER = "// BEGIN GENERATED ENUMS";
+    private static final String JS_END_MARKER = "// END GENERATED ENUMS";
+
+    private static final String LICENSE_HEADER =
+            "// Copyright 2015 Google Inc. All Rights Reserved.\n"
+            + "// \n"
+            + "// Licensed under the Apache License, Version 2.0 (the \"License\");\n"
+            + "// you may not use this file except in compliance with the License.\n"
+            + "// You may obtain a copy of the License at\n"
+            + "// \n"
+            + "//     http://www.apache.org/licenses/LICENSE-2.0\n"
+            + "// \n"
+            + "// Unless required by applicable law or agreed to in writing, software\n"
+            + "// distributed under the License is distributed on an \"AS IS\" BASIS,\n"
+            + "// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.\n"
+            + "// See the License for the specific language governing permissions and\n"
+            + "// limitations under the License.\n";
+
+    public static void main(String[] args) throws IOException, JSONException {
+        if (args.length != 3) {
+            System.err.println("Usage: MessageSchemaGenerator <schema file> <MessageSchema.java> "
+                    + "<spellcast_messages.js>");
+            System.exit(1);
+        }
+        JSONObject schema = new JSONObject(read(new File(args[0])));
+        JSONArray enums = schema.getJSONArray("enums");
+        JSONArray messages = schema.getJSONArray("messages");
+
+        write(new File(args[1]), generateJava(enums, messages));
+
+        File jsFile = new File(args[2]);
+        String js = read(jsFile);
+        int begin = js.indexOf(JS_BEGIN_MARKER);
+        int end = js.indexOf(JS_END_MARKER);
+        if (begin < 0 || end < begin) {
+            throw new IOException(jsFile + " has no generated enum section.");
+        }
+        begin = js.indexOf('\n', begin) + 1;
+        write(jsFile, js.substring(0, begin) + generateJs(enums) + js.substring(end));
+        System.out.println("Generated " + enums.length() + " enums and " + messages.length()
+                + " messages into " + args[1] + " and " + args[2]);
+    }
+
+    private static String generateJava(JSONArray enums, JSONArray messages)
+            throws JSONException {
+        StringBuilder java = new StringBuilder(LICENSE_HEADER);
+        java.append("package ").append(JAVA_PACKAGE).append(";\n\n")
+                .append("import com.google.cast.samples.games.spellcast.SpellcastGameModel;\n\n")
+                .append("/**\n")
+                .append(" * Wire ids and keys of the messages exchanged with the receiver. "
+                        + "Generated by\n")
+                .append(" * MessageSchemaGenerator from rune-tools/schema/spellcast_messages.json, "
+                        + "do not edit. Change\n")
+                .append(" * the schema and run \"gradle generateMessageSchema\" in rune-tools "
+                        + "instead.\n")
+                .append(" */\n")
+                .append("public final class MessageSchema {\n\n")
+                .append("    private MessageSchema() {\n")
+                .append("    }\n");
+
+        for (int i = 0; i < enums.length(); ++i) {
+            JSONObject enumSchema = enums.getJSONObject(i);
+            String type = enumSchema.getString("java");
+            String table = toConstantCase(enumSchema.getString("name"));
+            String defaultValue = type + "." + enumSchema.getString("javaDefault");
+            List<String> omitted = getStrings(enumSchema.optJSONArray("javaOmits"));
+            JSONArray values = enumSchema.getJSONArray("values");
+
+            java.append("\n    // Indexed by the wire id.\n")
+                    .append("    private static final ").append(type).append("[] ")
+                    .append(table).append("_BY_ID = {\n");
+            for (int id = 0; id < values.length(); ++id) {
+                String value = values.getString(id);
+                java.append("        ")
+                        .append(omitted.contains(value) ? defaultValue : type + "." + value)
+                        .append(",\n");
+            }
+            java.append("    };\n\n")
+                    .append("    // Indexed by the ordinal.\n")
+                    .append("    private static final int[] ").append(table).append("_IDS =\n")
+                    .append("            new int[").append(type).append(".values().length];\n\n")
+                    .append("    static {\n");
+            for (int id = 0; id < values.length(); ++id) {
+                String value = values.getString(id);
+                if (!omitted.contains(value)) {
+                    java.append("        ").append(table).append("_IDS[").append(type)
+                            .append('.').append(value).append(".ordinal()] = ").append(id)
+                            .append(";\n");
+                }
+            }
+            java.append("    }\n\n")
+                    .append("    /**\n")
+                    .append("     * @return The value with the wire id, or ")
+                    .append(enumSchema.getString("javaDefault"))
+                    .append(" if the id is unknown.\n")
+                    .append("     */\n")
+                    .append("    public static ").append(type).append(" decode")
+                    .append(enumSchema.getString("name")).append("(int id) {\n")
+                    .append("        return id >= 0 && id < ").append(table)
+                    .append("_BY_ID.length ? ").append(table).append("_BY_ID[id]\n")
+                    .append("                : ").append(defaultValue).append(";\n")
+                    .append("    }\n\n")
+                    .append("    public static int encode(").append(type).append(" value) {\n")
+                    .append("        return ").append(table).append("_IDS[value.ordinal()];\n")
+                    .append("    }\n");
+        }
+
+        for (int i = 0; i < messages.length(); ++i) {
+            JSONObject messageSchema = messages.getJSONObject(i);
+            String name = messageSchema.getString("name");
+            java.append("\n    /**\n")
+                    .append("     * Keys of {@code ").append(JS_NAMESPACE).append(name)
+                    .append("}.\n")
+                    .append("     */\n")
+                    .append("    public static final class ").append(name).append(" {\n");
+            JSONArray fields = messageSchema.getJSONArray("fields");
+            for (int j = 0; j < fields.length(); ++j) {
+                String field = fields.getString(j);
+                java.append("        public static final String KEY_")
+                        .append(toConstantCase(field)).append(" = \"").append(field)
+                        .append("\";\n");
+            }
+            java.append("\n        private ").append(name).append("() {\n")
+                    .append("        }\n")
+                    .append("    }\n");
+        }
+        return java.append("}\n").toString();
+    }
+
+    private static String generateJs(JSONArray enums) throws JSONException {
+        StringBuilder js = new StringBuilder();
+        js.append("// Generated by MessageSchemaGenerator from\n")
+                .append("// rune-tools/schema/spellcast_messages.json, do not edit.\n");
+        for (int i = 0; i < enums.length(); ++i) {
+            JSONObject enumSchema = enums.getJSONObject(i);
+            js.append("\n\n/**\n")
+                    .append(" * @enum {number} ").append(enumSchema.getString("description"))
+                    .append('\n')
+                    .append(" * @export\n")
+                    .append(" */\n")
+                    .append(JS_NAMESPACE).append(enumSchema.getString("name")).append(" = {\n");
+            JSONArray values = enumSchema.getJSONArray("values");
+            for (int id = 0; id < values.length(); ++id) {
+                js.append("  ").append(values.getString(id)).append(": ").append(id)
+                        .append(id < values.length() - 1 ? ",\n" : "\n");
+            }
+            js.append("};\n");
+        }
+        return js.toString();
+    }
+
+    /**
+     * @return The name in upper case with words separated by underscores, like GAME_STATE_ID for
+     *         gameStateId.
+     */
+    private static String toConstantCase(String name) {
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < name.length(); ++i) {
+            char c = name.charAt(i);
+            if (i > 0 && Character.isUpperCase(c)) {
+                constant.append('_');
+            }
+            constant.append(Character.toUpperCase(c));
+        }
+        return constant.toString();
+    }
+
+    private static List<String> getStrings(JSONArray array) throws JSONException {
+        String[] strings = new String[array == null ? 0 : array.length()];
+        for (int i = 0; i < strings.length; ++i) {
+            strings[i] = array.getString(i);
+        }
+        return Arrays.asList(strings);
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,113 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.spellcast.tools;
+
+import com.google.cast.samples.games.spellcast.runes.RuneTemplatePackFormat;
+import com.google.cast.samples.games.spellcast.runes.ScoringTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Build-time tool that converts every rune scoring template PNG into one binary pack that the
+ * sender memory maps at runtime, instead of decoding and thresholding the PNGs on every launch.
+ * See {@link RuneTemplatePackFormat} for the layout of the pack.
+ *
+ * <p>Usage: {@code RuneTemplatePacker <scoring template directory> <output pack file>}
+ */
+public class RuneTemplatePacker {
+    private static final int TEMPLATE_SIZE = ScoringTemplate.TEMPLATE_SIZE;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println(
+                    "Usage: RuneTemplatePacker <scoring template directory> <output pack file>");
+            System.exit(1);
+        }
+
+        File templateDirectory = new File(args[0]);
+        File[] templateFiles = templateDirectory.listFiles();
+        if (templateFiles == null) {
+            throw new IOException("Cannot list " + templateDirectory);
+        }
+        // Sort so the pack is byte-for-byte reproducible.
+        Arrays.sort(templateFiles);
+
+        Map<String, ScoringTemplate> templates = new LinkedHashMap<>();
+        for (File templateFile : templateFiles) {
+            if (isTemplateFile(templateFile)) {
+                templates.put(templateFile.getName(), readTemplate(templateFile));
+            }
+        }
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]));
+        try {
+            RuneTemplatePackFormat.write(out, templates);
+        } finally {
+            out.close();
+        }
+        System.out.println("Packed " + templates.size() + " rune templates into " + args[1]);
+    }
+
+    private static boolean isTemplateFile(File file) {
+        return file.isFile() && file.getName().endsWith(".png");
+    }
+
+    private static ScoringTemplate readTemplate(File templateFile) throws IOException {
+        BufferedImage image = ImageIO.read(templateFile);
+        if (image == null) {
+            throw new IOException("Cannot decode " + templateFile);
+        }
+        if (image.getWidth() != TEMPLATE_SIZE || image.getHeight() != TEMPLATE_SIZE) {
+            throw new IOException("Template bitmap " + templateFile + " is not " + TEMPLATE_SIZE
+                    + "x" + TEMPLATE_SIZE + ". Please fix!");
+        }
+
+        byte[][] scoringTemplate = new byte[TEMPLATE_SIZE][TEMPLATE_SIZE];
+        for (int i = 0; i < TEMPLATE_SIZE; ++i) {
+            for (int j = 0; j < TEMPLATE_SIZE; ++j) {
+                int red = getDecodedRed(image.getRGB(j, i));
+                scoringTemplate[i][j] = ScoringTemplate.getScoreForRed(red);
+            }
+        }
+        return ScoringTemplate.fromScoreGrid(scoringTemplate);
+    }
+
+    /**
+     * BitmapFactory stores pixels premultiplied and Bitmap.getPixels un-premultiplies them again,
+     * so translucent pixels lose some precision and fully transparent ones read back as black.
+     * Reproduce that here so the pack matches what the device computed from the PNG.
+     */
+    private static int getDecodedRed(int argb) {
+        int alpha = argb >>> 24;
+        int red = (argb >> 16) & 0xFF;
+        if (alpha == 0) {
+            return 0;
+        }
+        if (alpha == 0xFF) {
+            return red;
+        }
+        int premultiplied = (red * alpha + 127) / 255;
+        return Math.min(0xFF, (premultiplied * 255 + alpha / 2) / alpha);
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright 2015 Google Inc. All Rights Reserved.
+// 
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+// 
+//     http://www.apache.org/licenses/LICENSE-2.0
+// 
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.google.cast.samples.games.starcast;
+
+/**
+ * Conditions the move axis before it is sent to the receiver. Moves are rounded to a fixed number
+ * of steps, and moves that stay within a dead-band of the last accepted move are dropped, so small
+ * finger jitter does not turn into messages.
+ *
+ * <p>The dead-band is measured from the last accepted move rather than the last sent one. Accepted
+ * moves are queued in the single move slot of {@link SendMessageHandler}, where a newer move
+ * replaces the queued one, so the move that is sent is always the last accepted move and the two
+ * agree after every send. In between, a move that returns to the last sent step before the next
+ * send can be sent again, which costs at most one redundant message per send.
+ */
+public class MoveInputFilter {
+    private final int mSteps;
+    private final int mDeadBandSteps;
+
+    // The step of the last accepted move, or -1 if there is none.
+    private int mLastStep = -1;
+
+    /**
+     * @param steps The number of steps the move axis between 0 and 1 is rounded to.
+     * @param deadBandSteps Moves that are at most this many steps away from the last accepted move
+     *            are dropped. Zero only drops moves to the same step.
+     */
+    public MoveInputFilter(int steps, int deadBandSteps) {
+        if (steps < 1 || deadBandSteps < 0) {
+            throw new IllegalArgumentException("Invalid move input steps " + steps
+                    + " or dead-band " + deadBandSteps);
+        }
+        mSteps = steps;
+        mDeadBandSteps = deadBandSteps;
+    }
+
+    /**
+     * @param move The move axis, from 0 at the top to 1 at the bottom.
+     * @return True if the move should be sent. {@link #getMove()} then returns the rounded move.
+     */
+    public boolean accept(float move) {
+        int step = Math.round(Math.max(0f, Math.min(1f, move)) * mSteps);
+        if (mLastStep >= 0 && Math.abs(step - mLastStep) <= mDeadBandSteps
+                // Always let the ends through, so the player can reach them.
+                && step != 0 && step != mSteps) {
+            return false;
+        }
+        if (step == mLastStep) {
+            return false;
+        }
+        mLastStep = step;
+        return true;
+    }
+
+    /**
+     * @return The last accepted move, rounded to a step.
+     */
+    public float getMove() {
+        return (float) mLastStep / mSteps;
+    }
+
+    /**
+     * Forgets the last accepted move, so the next move is always accepted.
+     */
+    public void reset() {
+        mLastStep = -1;
+    }
+}
@@ -15,78 +15,431 @@ package com.google.cast.samples.games.starcast;
 
 import com.google.android.gms.cast.games.GameManagerClient;
 import com.google.android.gms.cast.games.GameManagerState;
+import com.google.android.gms.common.api.PendingResult;
+import com.google.android.gms.common.api.ResultCallback;
 
-import android.annotation.SuppressLint;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.HashMap;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
 
 /**
  * A handler class that sends messages at specified intervals. This allows throttling of messages so
  * they don't all get sent immediately.
+ *
+ * <p>The interval adapts to the link. Every so often one of the queued messages is sent as a game
+ * request, and the time until its result arrives gives the round trip time of the link. The
+ * interval shrinks while round trips stay close to their average and doubles when a round trip is
+ * much slower than usual, a request fails or it takes too long to answer. Nothing is scheduled
+ * while there are no messages to send.
+ *
+ * <p>Receivers that say so in their game data get all the messages of a send in one batch, so
+ * moving and firing in the same frame costs one Cast message instead of two.
+ *
+ * <p>Queued messages are kept as raw values in a slot per message type, and only turned into JSON
+ * when they are sent, so queuing input at the touch sampling rate does not allocate.
+ *
+ * <p>The handler can run on its own looper, such as the one of a {@link android.os.HandlerThread},
+ * so sending never holds up the UI thread. Messages are then queued from one thread, usually the
+ * UI thread, and sent from the looper thread. Each slot packs its state and value into a single
+ * long, so queuing is a single atomic write and never blocks. Connection changes are handed to
+ * the looper too, and nothing is polled while disconnected.
  */
 public class SendMessageHandler extends Handler {
 
-    // The int used for the "what" field used when sending messages.
-    private static final int MESSAGE_WHAT_VALUE = 0;
+    // The ints used for the "what" field of the handler messages.
+    private static final int MESSAGE_WHAT_SEND = 0;
+    private static final int MESSAGE_WHAT_FLUSH = 1;
+    private static final int MESSAGE_WHAT_PROBE_RESULT = 2;
+    private static final int MESSAGE_WHAT_CONNECTION_CHANGED = 3;
+
+    private static final int INITIAL_SEND_MESSAGE_DELAY_MS = 50;
+    private static final int MIN_SEND_MESSAGE_DELAY_MS = 16;
+    private static final int MAX_SEND_MESSAGE_DELAY_MS = 250;
+    // How much faster the messages are sent after each healthy round trip.
+    private static final int SEND_MESSAGE_DELAY_DECREASE_MS = 4;
+    // How often a round trip time probe is sent, and how long to wait for its result.
+    private static final int PROBE_INTERVAL_MS = 500;
+    private static final int PROBE_TIMEOUT_MS = 1000;
+
+    // Set in the game data by receivers that accept batches.
+    private static final String GAME_DATA_FIELD_BATCHED_MESSAGES = "batchedMessages";
+    private static final String MESSAGE_FIELD_BATCH = "batch";
+    private static final String TAG = "SendMessageHandler";
 
-    private static final int SEND_MESSAGE_DELAY_MS = 50;
+    // Message types are used as slot indices, so they must be below this.
+    private static final int MAX_MESSAGE_TYPES = 8;
+
+    // Slot states, kept in the upper half of a slot. The lower half holds the bits of the value.
+    private static final long SLOT_EMPTY = 0;
+    private static final long SLOT_VALUE = 1;
+    private static final long SLOT_FLAG = 2;
+    private static final int SLOT_STATE_SHIFT = 32;
+    private static final long SLOT_VALUE_MASK = 0xFFFFFFFFL;
 
     private CastConnectionManager mCastConnectionManager;
+    // The client to send with, or null if not connected. Connection changes happen on the main
+    // thread and are handed to the looper of this handler, so sending never reads the fields of
+    // the connection manager from another thread.
+    private GameManagerClient mGameManagerClient;
+
+    private final Observer mConnectionObserver = new Observer() {
+        @Override
+        public void update(Observable observable, Object data) {
+            postConnectionChanged();
+        }
+    };
 
-    // Mapping of message type (an int) to message. Used for tracking only one message per type.
-    // We don't want sparse arrays! We want to be able to get all the values in the map, and sparse
-    // arrays don't let us do that!
-    @SuppressLint("UseSparseArrays")
-    private HashMap<Integer, JSONObject> mMessageMap = new HashMap<>();
+    // The latest message of each type, indexed by message type. Only one message per type is
+    // kept, so a newer message replaces the queued one. The queuing thread writes the field before
+    // the slot, and the sending thread takes the slot before reading the field, so the write of
+    // the slot publishes the field.
+    private final AtomicLongArray mSlots = new AtomicLongArray(MAX_MESSAGE_TYPES);
+    private final String[] mSlotFields = new String[MAX_MESSAGE_TYPES];
+    // The slots taken by the current send. Only used by the sending thread.
+    private final long[] mTakenSlots = new long[MAX_MESSAGE_TYPES];
+    private final AtomicBoolean mIsSendScheduled = new AtomicBoolean(false);
 
+    // Read by the queuing thread to schedule sends.
+    private volatile boolean mIsSending = false;
+    private volatile int mSendMessageDelayMs = INITIAL_SEND_MESSAGE_DELAY_MS;
+    private volatile long mLastSendTimeMs = 0;
+
+    // Smoothed round trip time and its mean deviation, as in TCP. Zero until the first sample.
+    private long mSmoothedRoundTripMs = 0;
+    private long mRoundTripDeviationMs = 0;
+    private long mProbeSendTimeMs = 0;
+    private boolean mIsProbeInFlight = false;
+
+    private final ResultCallback<GameManagerClient.GameManagerResult> mProbeCallback =
+            new ResultCallback<GameManagerClient.GameManagerResult>() {
+                @Override
+                public void onResult(GameManagerClient.GameManagerResult result) {
+                    // Results are delivered on the main thread, so hand them to the looper that
+                    // owns the round trip state.
+                    obtainMessage(MESSAGE_WHAT_PROBE_RESULT,
+                            result.getStatus().isSuccess() ? 1 : 0, 0).sendToTarget();
+                }
+            };
+
+    /**
+     * Creates a handler that sends messages on the main thread.
+     */
     public SendMessageHandler(CastConnectionManager castConnectionManager) {
+        this(castConnectionManager, Looper.getMainLooper());
+    }
+
+    /**
+     * Creates a handler that sends messages on the thread of the passed in looper. Must be called
+     * on the main thread, where the connection manager changes its state.
+     */
+    public SendMessageHandler(CastConnectionManager castConnectionManager, Looper looper) {
+        super(looper);
         mCastConnectionManager = castConnectionManager;
+        mCastConnectionManager.addObserver(mConnectionObserver);
+        postConnectionChanged();
     }
 
     @Override
-    public void handleMessage(android.os.Message unused) {
-        processMessages();
-        sendEmptyMessageDelayed(MESSAGE_WHAT_VALUE, SEND_MESSAGE_DELAY_MS);
+    public void handleMessage(android.os.Message message) {
+        switch (message.what) {
+            case MESSAGE_WHAT_SEND:
+                if (!mIsSending) {
+                    // Scheduled on this thread while flushMessages paused sending on another.
+                    mIsSendScheduled.set(false);
+                    break;
+                }
+                boolean isSent = processMessages();
+                // Cleared once the send time is updated, so a message queued from now on is
+                // scheduled from this send. Messages queued while sending are scheduled below.
+                mIsSendScheduled.set(false);
+                if (isSent) {
+                    scheduleSend();
+                } else if (mGameManagerClient != null) {
+                    // Only keeps polling while messages could not be sent, for example before a
+                    // player joins, and no more often than the send delay. While disconnected,
+                    // the next connection change schedules the send.
+                    scheduleSendAt(SystemClock.uptimeMillis() + mSendMessageDelayMs);
+                }
+                break;
+            case MESSAGE_WHAT_FLUSH:
+                processMessages();
+                break;
+            case MESSAGE_WHAT_PROBE_RESULT:
+                onProbeResult(message.arg1 != 0);
+                break;
+            case MESSAGE_WHAT_CONNECTION_CHANGED:
+                mGameManagerClient = (GameManagerClient) message.obj;
+                scheduleSend();
+                break;
+            default:
+                Log.w(TAG, "Unknown message " + message.what);
+                break;
+        }
     }
 
-    private void processMessages() {
-        if (!mCastConnectionManager.isConnectedToReceiver()) {
-            return;
+    /**
+     * @return True if messages were sent.
+     */
+    private boolean processMessages() {
+        GameManagerClient gameManagerClient = mGameManagerClient;
+        if (!hasPendingMessages() || gameManagerClient == null
+                || gameManagerClient.isDisposed()) {
+            return false;
+        }
+        try {
+            return sendMessages(gameManagerClient);
+        } catch (IllegalStateException e) {
+            // The main thread disposed the client while sending. The connection change that
+            // follows clears it.
+            Log.w(TAG, "Game manager client disposed while sending", e);
+            return false;
         }
-        GameManagerClient gameManagerClient = mCastConnectionManager.getGameManagerClient();
+    }
+
+    private boolean sendMessages(GameManagerClient gameManagerClient) {
         GameManagerState state = gameManagerClient.getCurrentState();
         if (state.getConnectedControllablePlayers().size() == 0) {
-            return;
+            return false;
+        }
+
+        int messageCount = 0;
+        for (int messageType = 0; messageType < MAX_MESSAGE_TYPES; ++messageType) {
+            mTakenSlots[messageType] = mSlots.getAndSet(messageType, SLOT_EMPTY);
+            if (mTakenSlots[messageType] != SLOT_EMPTY) {
+                ++messageCount;
+            }
+        }
+        if (messageCount == 0) {
+            return false;
         }
 
         String playerId = state.getConnectedControllablePlayers().get(0).getPlayerId();
-        for (JSONObject message : mMessageMap.values()) {
+        long now = SystemClock.uptimeMillis();
+        checkProbeTimeout(now);
+        boolean sendProbe = !mIsProbeInFlight && now - mProbeSendTimeMs >= PROBE_INTERVAL_MS;
+        JSONArray batch = null;
+        if (messageCount > 1 && isBatchingSupported(state)) {
+            batch = new JSONArray();
+        }
+        int remainingMessageCount = messageCount;
+        for (int messageType = 0; messageType < MAX_MESSAGE_TYPES; ++messageType) {
+            if (mTakenSlots[messageType] == SLOT_EMPTY) {
+                continue;
+            }
+            --remainingMessageCount;
+            JSONObject message = createMessage(messageType, mTakenSlots[messageType]);
+            if (batch != null) {
+                batch.put(message);
+            } else {
+                // The probe is sent last so its round trip includes the whole send.
+                send(gameManagerClient, playerId, message,
+                        sendProbe && remainingMessageCount == 0, now);
+            }
+        }
+        if (batch != null) {
+            send(gameManagerClient, playerId, createBatch(batch), sendProbe, now);
+        }
+        mLastSendTimeMs = now;
+        return true;
+    }
+
+    /**
+     * Hands the current game manager client to the looper of this handler. Called on the main
+     * thread.
+     */
+    private void postConnectionChanged() {
+        GameManagerClient gameManagerClient = mCastConnectionManager.isConnectedToReceiver()
+                ? mCastConnectionManager.getGameManagerClient() : null;
+        obtainMessage(MESSAGE_WHAT_CONNECTION_CHANGED, gameManagerClient).sendToTarget();
+    }
+
+    private boolean hasPendingMessages() {
+        for (int messageType = 0; messageType < MAX_MESSAGE_TYPES; ++messageType) {
+            if (mSlots.get(messageType) != SLOT_EMPTY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private JSONObject createMessage(int messageType, long slot) {
+        JSONObject message = new JSONObject();
+        try {
+            if (slot >>> SLOT_STATE_SHIFT == SLOT_FLAG) {
+                message.put(mSlotFields[messageType], true);
+            } else {
+                message.put(mSlotFields[messageType],
+                        Float.intBitsToFloat((int) (slot & SLOT_VALUE_MASK)));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Error creating JSON message", e);
+        }
+        return message;
+    }
+
+    private void send(GameManagerClient gameManagerClient, String playerId, JSONObject message,
+            boolean isProbe, long now) {
+        if (isProbe) {
+            PendingResult<GameManagerClient.GameManagerResult> result =
+                    gameManagerClient.sendGameRequest(playerId, message);
+            result.setResultCallback(mProbeCallback);
+            mIsProbeInFlight = true;
+            mProbeSendTimeMs = now;
+        } else {
             gameManagerClient.sendGameMessage(playerId, message);
         }
-        mMessageMap.clear();
+    }
+
+    private static boolean isBatchingSupported(GameManagerState state) {
+        JSONObject gameData = state.getGameData();
+        return gameData != null && gameData.optBoolean(GAME_DATA_FIELD_BATCHED_MESSAGES, false);
+    }
+
+    /**
+     * @return One message holding all the messages in the batch.
+     */
+    private static JSONObject createBatch(JSONArray batch) {
+        JSONObject envelope = new JSONObject();
+        try {
+            envelope.put(MESSAGE_FIELD_BATCH, batch);
+        } catch (JSONException e) {
+            Log.e(TAG, "Error creating JSON batch message", e);
+        }
+        return envelope;
+    }
+
+    private void onProbeResult(boolean isSuccess) {
+        if (!mIsProbeInFlight) {
+            // The probe already timed out.
+            return;
+        }
+        mIsProbeInFlight = false;
+        long roundTripMs = SystemClock.uptimeMillis() - mProbeSendTimeMs;
+        if (!isSuccess) {
+            backOff();
+            return;
+        }
+        if (mSmoothedRoundTripMs == 0) {
+            mSmoothedRoundTripMs = roundTripMs;
+            mRoundTripDeviationMs = roundTripMs / 2;
+        } else {
+            boolean isCongested =
+                    roundTripMs > mSmoothedRoundTripMs + 4 * mRoundTripDeviationMs;
+            mRoundTripDeviationMs += (Math.abs(roundTripMs - mSmoothedRoundTripMs)
+                    - mRoundTripDeviationMs) / 4;
+            mSmoothedRoundTripMs += (roundTripMs - mSmoothedRoundTripMs) / 8;
+            if (isCongested) {
+                backOff();
+                return;
+            }
+        }
+        mSendMessageDelayMs = Math.max(MIN_SEND_MESSAGE_DELAY_MS,
+                mSendMessageDelayMs - SEND_MESSAGE_DELAY_DECREASE_MS);
+    }
+
+    private void checkProbeTimeout(long now) {
+        if (mIsProbeInFlight && now - mProbeSendTimeMs > PROBE_TIMEOUT_MS) {
+            mIsProbeInFlight = false;
+            backOff();
+        }
+    }
+
+    private void backOff() {
+        mSendMessageDelayMs = Math.min(MAX_SEND_MESSAGE_DELAY_MS, mSendMessageDelayMs * 2);
     }
 
     /**
-     * Sets a message of the specified messageType to be sent to the receiver. If this function is
-     * called more than once with the same messageType, only the message from the last call will be
-     * sent. This is so we only send one message per messageType every message cycle.
+     * Schedules the next send if messages are waiting and none is scheduled yet, keeping at least
+     * the current send delay between two sends. Safe to call from the queuing thread.
+     */
+    private void scheduleSend() {
+        scheduleSendAt(mLastSendTimeMs + mSendMessageDelayMs);
+    }
+
+    /**
+     * Schedules the next send if messages are waiting and none is scheduled yet.
      *
-     * @param messageType integer representing type of the message.
-     * @param message the JSON message to be sent to the receiver.
+     * @param sendTimeMs The earliest time to send at, in the {@link SystemClock#uptimeMillis} time
+     *            base.
      */
-    public void enqueueMessage(int messageType, JSONObject message) {
-        mMessageMap.put(messageType, message);
+    private void scheduleSendAt(long sendTimeMs) {
+        if (!mIsSending || !hasPendingMessages() || !mIsSendScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        sendEmptyMessageAtTime(MESSAGE_WHAT_SEND, Math.max(SystemClock.uptimeMillis(), sendTimeMs));
+    }
+
+    /**
+     * Sets a message of the specified messageType to be sent to the receiver, with a single field
+     * set to true. If a message of the same messageType is already queued, only the message from
+     * the last call will be sent. This is so we only send one message per messageType every
+     * message cycle.
+     *
+     * @param messageType integer representing type of the message, below 8.
+     * @param field the name of the field of the JSON message.
+     */
+    public void enqueueFlag(int messageType, String field) {
+        enqueue(messageType, field, SLOT_FLAG, 0);
+    }
+
+    /**
+     * Sets a message of the specified messageType to be sent to the receiver, with a single field
+     * set to value. See {@link #enqueueFlag}.
+     *
+     * @param messageType integer representing type of the message, below 8.
+     * @param field the name of the field of the JSON message.
+     * @param value the value of the field.
+     */
+    public void enqueueValue(int messageType, String field, float value) {
+        enqueue(messageType, field, SLOT_VALUE, value);
     }
 
+    private void enqueue(int messageType, String field, long slotState, float value) {
+        if (messageType < 0 || messageType >= MAX_MESSAGE_TYPES) {
+            throw new IllegalArgumentException("Invalid message type " + messageType);
+        }
+        mSlotFields[messageType] = field;
+        mSlots.set(messageType, (slotState << SLOT_STATE_SHIFT)
+                | (Float.floatToRawIntBits(value) & SLOT_VALUE_MASK));
+        scheduleSend();
+    }
+
+    /**
+     * Sends the queued messages and stops sending until {@link #resumeSendingMessages} is called.
+     * When the handler runs on another thread the messages are sent from there, after everything
+     * queued before this call, so the calling thread does not wait on the Cast transport.
+     */
     public void flushMessages() {
-        processMessages();
-        removeMessages(MESSAGE_WHAT_VALUE);
+        mIsSending = false;
+        removeMessages(MESSAGE_WHAT_SEND);
+        mIsSendScheduled.set(false);
+        if (getLooper() == Looper.myLooper()) {
+            processMessages();
+        } else {
+            sendEmptyMessage(MESSAGE_WHAT_FLUSH);
+        }
     }
 
     public void resumeSendingMessages() {
-        sendEmptyMessageDelayed(MESSAGE_WHAT_VALUE, SEND_MESSAGE_DELAY_MS);
+        mIsSending = true;
+        scheduleSend();
+    }
+
+    /**
+     * @return The current delay between two sends, in milliseconds.
+     */
+    public int getSendMessageDelayMs() {
+        return mSendMessageDelayMs;
     }
 }
@@ -15,26 +15,21 @@ package com.google.cast.samples.games.starcast;
 
 import android.app.Fragment;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.View.OnClickListener;
 import android.view.ViewGroup;
 import android.widget.Button;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 /**
  * The main activity for StarCast game.
  */
 public class StarCastFragment extends Fragment {
-    private static final String TAG = "StarCastFragment";
 
     public static final int MESSAGE_TYPE_STARCAST_FIRE = 1;
     public static final int MESSAGE_TYPE_STARCAST_MOVE = 2;
-    private static final String MESSAGE_FIELD_STARCAST_FIRE = "fire";
-    private static final String MESSAGE_FIELD_STARCAST_MOVE = "move";
+    public static final String MESSAGE_FIELD_STARCAST_FIRE = "fire";
+    public static final String MESSAGE_FIELD_STARCAST_MOVE = "move";
 
     private TouchControllerView mTouchControllerView;
     private Button mFireButton;
@@ -52,31 +47,11 @@ public class StarCastFragment extends Fragment {
 
             @Override
             public void onClick(View view) {
-                StarcastApplication.getInstance().getSendMessageHandler().enqueueMessage(
-                        MESSAGE_TYPE_STARCAST_FIRE, createFireMessage());
+                StarcastApplication.getInstance().getSendMessageHandler().enqueueFlag(
+                        MESSAGE_TYPE_STARCAST_FIRE, MESSAGE_FIELD_STARCAST_FIRE);
             }
 
         });
         return view;
     }
-
-    public static JSONObject createFireMessage() {
-        JSONObject fireMessage = new JSONObject();
-        try {
-            fireMessage.put(MESSAGE_FIELD_STARCAST_FIRE, true);
-        } catch (JSONException e) {
-            Log.e(TAG, "Error creating JSON fire message", e);
-        }
-        return fireMessage;
-    }
-
-    public static JSONObject createMoveMessage(float move) {
-        JSONObject moveMessage = new JSONObject();
-        try {
-            moveMessage.put(MESSAGE_FIELD_STARCAST_MOVE, move);
-        } catch (JSONException e) {
-            Log.e(TAG, "Error creating JSON move message", e);
-        }
-        return moveMessage;
-    }
 }
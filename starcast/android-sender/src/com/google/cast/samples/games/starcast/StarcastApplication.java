@@ -14,6 +14,7 @@
 package com.google.cast.samples.games.starcast;
 
 import android.app.Application;
+import android.os.HandlerThread;
 
 /**
  * The application class.
@@ -21,6 +22,8 @@ import android.app.Application;
 public class StarcastApplication extends Application
         implements CastConnectionManager.CastAppIdProvider {
 
+    private static final String SENDER_THREAD_NAME = "StarcastSender";
+
     private static StarcastApplication sInstance;
 
     private CastConnectionManager mCastConnectionManager;
@@ -31,7 +34,15 @@ public class StarcastApplication extends Application
         super.onCreate();
         sInstance = this;
         mCastConnectionManager = new CastConnectionManager(this, this);
-        mSendMessageHandler = new SendMessageHandler(mCastConnectionManager);
+        if (getResources().getBoolean(R.bool.send_messages_on_sender_thread)) {
+            // Keeps the Cast transport off the UI thread, so touch input never waits on it.
+            HandlerThread senderThread = new HandlerThread(SENDER_THREAD_NAME);
+            senderThread.start();
+            mSendMessageHandler =
+                    new SendMessageHandler(mCastConnectionManager, senderThread.getLooper());
+        } else {
+            mSendMessageHandler = new SendMessageHandler(mCastConnectionManager);
+        }
     }
 
     public static StarcastApplication getInstance() {
@@ -23,21 +23,25 @@ import android.view.View;
  */
 public class TouchControllerView extends View {
 
+    private final MoveInputFilter mMoveInputFilter;
+
     public TouchControllerView(Context context, AttributeSet attributes) {
         super(context, attributes);
+        mMoveInputFilter = new MoveInputFilter(
+                getResources().getInteger(R.integer.move_input_steps),
+                getResources().getInteger(R.integer.move_input_dead_band_steps));
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
+                // Always send the first move of a touch, in case an earlier one was lost.
+                mMoveInputFilter.reset();
+                onMove(event);
+                break;
             case MotionEvent.ACTION_MOVE:
-                float y = event.getY();
-                float screenHeight = getHeight();
-                float scaled = y / screenHeight;
-                StarcastApplication.getInstance().getSendMessageHandler().enqueueMessage(
-                        StarCastFragment.MESSAGE_TYPE_STARCAST_MOVE,
-                        StarCastFragment.createMoveMessage(scaled));
+                onMove(event);
                 break;
             default:
                 return false;
@@ -46,4 +50,16 @@ public class TouchControllerView extends View {
         return true;
     }
 
+    private void onMove(MotionEvent event) {
+        float y = event.getY();
+        float screenHeight = getHeight();
+        float scaled = y / screenHeight;
+        if (mMoveInputFilter.accept(scaled)) {
+            StarcastApplication.getInstance().getSendMessageHandler().enqueueValue(
+                    StarCastFragment.MESSAGE_TYPE_STARCAST_MOVE,
+                    StarCastFragment.MESSAGE_FIELD_STARCAST_MOVE,
+                    mMoveInputFilter.getMove());
+        }
+    }
+
 }
@@ -653,6 +653,8 @@ cast.games.starcast.StarcastGame = function(gameManager) {
 goog.exportSymbol("cast.games.starcast.StarcastGame", cast.games.starcast.StarcastGame);
 cast.games.starcast.StarcastGame.FIRE_FIELD_ = "fire";
 cast.games.starcast.StarcastGame.MOVE_FIELD_ = "move";
+cast.games.starcast.StarcastGame.BATCH_FIELD_ = "batch";
+cast.games.starcast.StarcastGame.BATCHED_MESSAGES_FIELD_ = "batchedMessages";
 cast.games.starcast.StarcastGame.prototype.run = function(loadedCallback) {
   this.isRunning_ ? loadedCallback() : (this.loadedCallback_ = loadedCallback, this.isLoaded_ ? this.start_() : this.loader_.load());
 };
@@ -667,6 +669,9 @@ cast.games.starcast.StarcastGame.prototype.start_ = function() {
     document.body.appendChild(this.renderer_.view);
     this.isRunning_ = !0;
     this.gameManager_.updateGameplayState(cast.receiver.games.GameplayState.RUNNING, null);
+    var gameData = {};
+    gameData[cast.games.starcast.StarcastGame.BATCHED_MESSAGES_FIELD_] = !0;
+    this.gameManager_.updateGameData(gameData, !0);
     for (var players = this.gameManager_.getPlayers(), i = 0;i < players.length;i++) {
       this.addPlayer_(players[i].playerId);
     }
@@ -792,10 +797,20 @@ cast.games.starcast.StarcastGame.prototype.onGameMessage_ = function(event) {
     if (!player) {
       throw Error("No player found for player ID " + event.playerInfo.playerId);
     }
-    var moveField = event.requestExtraMessageData[cast.games.starcast.StarcastGame.MOVE_FIELD_];
-    this.onPlayerMessage_(player, !!event.requestExtraMessageData[cast.games.starcast.StarcastGame.FIRE_FIELD_], moveField ? parseFloat(moveField) : 0);
+    var messageData = event.requestExtraMessageData, batch = messageData[cast.games.starcast.StarcastGame.BATCH_FIELD_];
+    if (batch) {
+      for (var i = 0;i < batch.length;i++) {
+        this.onPlayerMessageData_(player, batch[i]);
+      }
+    } else {
+      this.onPlayerMessageData_(player, messageData);
+    }
   }
 };
+cast.games.starcast.StarcastGame.prototype.onPlayerMessageData_ = function(player, messageData) {
+  var fireField = messageData[cast.games.starcast.StarcastGame.FIRE_FIELD_], moveField = messageData[cast.games.starcast.StarcastGame.MOVE_FIELD_];
+  this.onPlayerMessage_(player, !!fireField, moveField ? parseFloat(moveField) : 0);
+};
 cast.games.starcast.StarcastGame.prototype.onPlayerMessage_ = function(player, fire, move) {
   var playerSprite = this.playerMap_[player.playerId];
   if (!playerSprite) {
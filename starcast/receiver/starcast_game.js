@@ -181,6 +181,22 @@ cast.games.starcast.StarcastGame.FIRE_FIELD_ = 'fire';
 cast.games.starcast.StarcastGame.MOVE_FIELD_ = 'move';
 
 
+/**
+ * JSON message field holding an array of messages sent together by senders
+ * that batch their messages.
+ * @private
+ */
+cast.games.starcast.StarcastGame.BATCH_FIELD_ = 'batch';
+
+
+/**
+ * Game data field telling senders that they can batch their messages in
+ * #BATCH_FIELD_.
+ * @private
+ */
+cast.games.starcast.StarcastGame.BATCHED_MESSAGES_FIELD_ = 'batchedMessages';
+
+
 /**
  * Runs the game. Game should load if not loaded yet.
  * @param {function()} loadedCallback This function will be called when the game
@@ -249,6 +265,11 @@ cast.games.starcast.StarcastGame.prototype.start_ = function() {
   this.gameManager_.updateGameplayState(
       cast.receiver.games.GameplayState.RUNNING, null);
 
+  // Let senders know that they can batch their messages.
+  var gameData = {};
+  gameData[cast.games.starcast.StarcastGame.BATCHED_MESSAGES_FIELD_] = true;
+  this.gameManager_.updateGameData(gameData, true);
+
   // Add any already connected players.
   var players = this.gameManager_.getPlayers();
   for (var i = 0; i < players.length; i++) {
@@ -483,10 +504,29 @@ cast.games.starcast.StarcastGame.prototype.onGameMessage_ = function(event) {
     throw Error('No player found for player ID ' + event.playerInfo.playerId);
   }
 
-  var fireField = event.requestExtraMessageData[
-      cast.games.starcast.StarcastGame.FIRE_FIELD_];
-  var moveField = event.requestExtraMessageData[
-      cast.games.starcast.StarcastGame.MOVE_FIELD_];
+  var messageData = event.requestExtraMessageData;
+  var batch = messageData[cast.games.starcast.StarcastGame.BATCH_FIELD_];
+  if (!batch) {
+    this.onPlayerMessageData_(player, messageData);
+    return;
+  }
+  for (var i = 0; i < batch.length; i++) {
+    this.onPlayerMessageData_(player, batch[i]);
+  }
+};
+
+
+/**
+ * Handles one message from a player, either a game message or one of the
+ * messages in a batch.
+ * @param {!cast.receiver.games.PlayerInfo} player
+ * @param {!Object} messageData
+ * @private
+ */
+cast.games.starcast.StarcastGame.prototype.onPlayerMessageData_ =
+    function(player, messageData) {
+  var fireField = messageData[cast.games.starcast.StarcastGame.FIRE_FIELD_];
+  var moveField = messageData[cast.games.starcast.StarcastGame.MOVE_FIELD_];
   this.onPlayerMessage_(player, !!fireField,
       moveField ? parseFloat(moveField) : 0);
 };